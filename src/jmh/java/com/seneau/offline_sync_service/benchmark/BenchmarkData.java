@@ -0,0 +1,68 @@
+package com.seneau.offline_sync_service.benchmark;
+
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Jeux de données des benchmarks: pointages récents et valides
+ */
+final class BenchmarkData {
+
+	private BenchmarkData() {
+	}
+
+	static List<PointageOfflineDto> standard(int count) {
+		LocalDateTime start = LocalDateTime.now().minusDays(1);
+		return IntStream.range(0, count)
+				.mapToObj(i -> new PointageOfflineDto(1000L + (i % 97), start.plusSeconds(37L * i)))
+				.toList();
+	}
+
+	static List<PointageTerrainOfflineDto> terrain(int count) {
+		LocalDateTime start = LocalDateTime.now().minusDays(1);
+		return IntStream.range(0, count)
+				.mapToObj(i -> new PointageTerrainOfflineDto(
+						start.plusSeconds(37L * i),
+						14.6937 + i * 0.00001234567,
+						-17.4441 - i * 0.00000987654))
+				.toList();
+	}
+
+	static List<PointageBatchDto> results(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> PointageBatchDto.builder()
+						.agent(1000L + i)
+						.date(LocalDate.of(2024, 12, 13))
+						.isTerrain(false)
+						.statut(i % 10 == 0 ? "ECHEC" : "SUCCES")
+						.message(i % 10 == 0 ? "Agent introuvable" : "Pointage enregistré")
+						.build())
+				.toList();
+	}
+
+	static SyncMessageDto message(TypePointageSync type, int count) {
+		SyncMessageDto message = SyncMessageDto.builder()
+				.batchId(UUID.randomUUID().toString())
+				.email("agent@seneau.sn")
+				.typePointage(type)
+				.createdAt(LocalDateTime.now())
+				.retryCount(0)
+				.build();
+		if (type == TypePointageSync.TERRAIN) {
+			message.setPrivileges(List.of("POINTAGE_TERRAIN"));
+			message.setPointagesTerrain(terrain(count));
+		} else {
+			message.setPointages(standard(count));
+		}
+		return message;
+	}
+}
@@ -0,0 +1,53 @@
+package com.seneau.offline_sync_service.benchmark;
+
+import com.seneau.offline_sync_service.config.CustomErrorDecoder;
+import feign.Request;
+import feign.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Décodage des réponses d'erreur du service de pointage (chemin emprunté à chaque échec et retry)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CustomErrorDecoderBenchmark {
+
+	@Param({"400", "500", "503"})
+	public int status;
+
+	private final CustomErrorDecoder decoder = new CustomErrorDecoder();
+	private Request request;
+	private byte[] body;
+
+	@Setup
+	public void setup() {
+		request = Request.create(Request.HttpMethod.POST, "http://localhost:8081/api/v1/pointages/offline/batch",
+				Map.of(), null, StandardCharsets.UTF_8, null);
+		body = "{\"message\":\"Matricule inconnu\",\"status\":%d}".formatted(status).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Exception decode() {
+		// Le corps est consommé par le décodeur: une réponse neuve par invocation
+		Response response = Response.builder()
+				.status(status)
+				.reason("Error")
+				.headers(Map.of())
+				.body(body)
+				.request(request)
+				.build();
+		return decoder.decode("PointageServiceClient#enregistrerPointagesOffline(String,PointageBatchRequestDto)", response);
+	}
+}
@@ -0,0 +1,47 @@
+package com.seneau.offline_sync_service.benchmark;
+
+import com.seneau.offline_sync_service.data.model.PointageBatchListConverter;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON des résultats d'un batch (sync_batch_results)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PointageBatchListConverterBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int pointages;
+
+	private final PointageBatchListConverter converter = new PointageBatchListConverter();
+	private List<PointageBatchDto> results;
+	private String json;
+
+	@Setup
+	public void setup() {
+		results = BenchmarkData.results(pointages);
+		json = converter.convertToDatabaseColumn(results);
+	}
+
+	@Benchmark
+	public String encode() {
+		return converter.convertToDatabaseColumn(results);
+	}
+
+	@Benchmark
+	public List<PointageBatchDto> decode() {
+		return converter.convertToEntityAttribute(json);
+	}
+}
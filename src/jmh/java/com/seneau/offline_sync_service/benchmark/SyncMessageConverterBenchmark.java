@@ -0,0 +1,61 @@
+package com.seneau.offline_sync_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.config.SyncMessageConverter;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aller-retour d'un SyncMessageDto dans RabbitMQ: JSON (Jackson2JsonMessageConverter) et format binaire
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SyncMessageConverterBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int pointages;
+
+	@Param({"STANDARD", "TERRAIN"})
+	public TypePointageSync type;
+
+	private final Jackson2JsonMessageConverter json =
+			new Jackson2JsonMessageConverter(new ObjectMapper().findAndRegisterModules());
+	private final SyncMessageConverter binary = new SyncMessageConverter(json, true, 4096);
+	private SyncMessageDto message;
+
+	@Setup
+	public void setup() {
+		message = BenchmarkData.message(type, pointages);
+	}
+
+	@Benchmark
+	public Object jsonRoundTrip() {
+		Message amqp = json.toMessage(message, new MessageProperties());
+		return json.fromMessage(amqp);
+	}
+
+	@Benchmark
+	public Object binaryRoundTrip() {
+		Message amqp = binary.toMessage(message, new MessageProperties());
+		return binary.fromMessage(amqp);
+	}
+
+	@Benchmark
+	public byte[] binaryEncode() {
+		return SyncMessageConverter.encode(message);
+	}
+}
@@ -0,0 +1,50 @@
+package com.seneau.offline_sync_service.benchmark;
+
+import com.seneau.offline_sync_service.service.ValidationService;
+import com.seneau.offline_sync_service.web.dto.PointageBatchRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainBatchRequestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation d'un batch reçu par le contrôleur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ValidationBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int pointages;
+
+	private final ValidationService validationService = new ValidationService();
+	private PointageBatchRequestDto standard;
+	private PointageTerrainBatchRequestDto terrain;
+
+	@Setup
+	public void setup() {
+		standard = new PointageBatchRequestDto();
+		standard.setPointages(BenchmarkData.standard(pointages));
+		terrain = new PointageTerrainBatchRequestDto();
+		terrain.setPointages(BenchmarkData.terrain(pointages));
+	}
+
+	@Benchmark
+	public List<String> validateBatchStandard() {
+		return validationService.validateBatchStandard(standard);
+	}
+
+	@Benchmark
+	public List<String> validateBatchTerrain() {
+		return validationService.validateBatchTerrain(terrain);
+	}
+}
@@ -0,0 +1,412 @@
+package com.seneau.offline_sync_service.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.config.PointageShards;
+import com.seneau.offline_sync_service.web.client.StubPointageServer;
+import com.seneau.offline_sync_service.web.dto.BulkStatusRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageBatchRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainBatchRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge de bout en bout: application complète contre PostgreSQL et RabbitMQ (Testcontainers)
+ * et un service de pointage factice. Lancé par le profil loadtest: mvn -Ploadtest verify
+ * Paramètres (-D): loadtest.duration, loadtest.concurrency, loadtest.agents,
+ * loadtest.stub.latency-ms, loadtest.stub.error-rate
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+class SyncLoadTest {
+
+	private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT2M"));
+	private static final Duration DRAIN_TIMEOUT = Duration.parse(System.getProperty("loadtest.drain-timeout", "PT3M"));
+	private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+	private static final int AGENTS = Integer.getInteger("loadtest.agents", 200);
+	private static final String PASSWORD = "loadtest";
+
+	private static final Set<String> TERMINAL = Set.of("COMPLETED", "PARTIAL_FAILURE", "FAILED");
+
+	@Container
+	static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+	@Container
+	static final RabbitMQContainer RABBIT = new RabbitMQContainer("rabbitmq:3.12-management-alpine");
+
+	static final StubPointageServer STUB = startStub();
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.rabbitmq.host", RABBIT::getHost);
+		registry.add("spring.rabbitmq.port", RABBIT::getAmqpPort);
+		registry.add("spring.rabbitmq.username", RABBIT::getAdminUsername);
+		registry.add("spring.rabbitmq.password", RABBIT::getAdminPassword);
+		registry.add("services.pointage.url", STUB::url);
+		registry.add("spring.cloud.openfeign.client.config.pointage-service.url", STUB::url);
+		registry.add("logging.level.com.seneau", () -> "WARN");
+		registry.add("logging.level.org.springframework.amqp", () -> "WARN");
+	}
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	AmqpAdmin amqpAdmin;
+
+	@Autowired
+	PointageShards pointageShards;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+	private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	private final Map<String, Long> pending = new ConcurrentHashMap<>();
+	private final List<Long> httpLatencies = Collections.synchronizedList(new ArrayList<>());
+	private final List<Long> completionLatencies = Collections.synchronizedList(new ArrayList<>());
+	private final Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+	private final AtomicLong acceptedBatches = new AtomicLong();
+	private final AtomicLong acceptedPointages = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final Sampler sampler = new Sampler();
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Test
+	void sustainedLoad() throws Exception {
+		ScheduledExecutorService background = Executors.newScheduledThreadPool(2);
+		background.scheduleWithFixedDelay(this::pollCompletions, 250, 250, TimeUnit.MILLISECONDS);
+		background.scheduleWithFixedDelay(sampler::sample, 500, 500, TimeUnit.MILLISECONDS);
+
+		// 1. Injection pendant DURATION
+		long start = System.nanoTime();
+		long deadline = start + DURATION.toNanos();
+		ExecutorService drivers = Executors.newFixedThreadPool(CONCURRENCY);
+		for (int i = 0; i < CONCURRENCY; i++) {
+			drivers.execute(() -> {
+				while (System.nanoTime() < deadline) {
+					submit();
+				}
+			});
+		}
+		drivers.shutdown();
+		assertThat(drivers.awaitTermination(DURATION.toSeconds() + 60, TimeUnit.SECONDS)).isTrue();
+		double ingestSeconds = (System.nanoTime() - start) / 1e9;
+
+		// 2. Attendre la fin des batchs soumis
+		long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+		while (!pending.isEmpty() && System.nanoTime() < drainDeadline) {
+			Thread.sleep(500);
+		}
+		double totalSeconds = (System.nanoTime() - start) / 1e9;
+		background.shutdownNow();
+
+		report(ingestSeconds, totalSeconds);
+		assertThat(acceptedBatches.get()).isPositive();
+		assertThat(pending).as("batchs non terminés après %s", DRAIN_TIMEOUT).isEmpty();
+	}
+
+	// ========== INJECTION ==========
+
+	private void submit() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String agent = "agent-" + random.nextInt(AGENTS) + "@seneau.sn";
+		int size = batchSize(random);
+		boolean terrain = random.nextInt(5) == 0;
+		try {
+			String path = terrain ? "/pointages/terrain/sync" : "/pointages/sync";
+			byte[] body = objectMapper.writeValueAsBytes(terrain ? terrainRequest(size) : standardRequest(size));
+			long begin = System.nanoTime();
+			HttpResponse<byte[]> response = http.send(post(agent, path, body), HttpResponse.BodyHandlers.ofByteArray());
+			httpLatencies.add(System.nanoTime() - begin);
+
+			JsonNode json = objectMapper.readTree(response.body());
+			if (response.statusCode() == 200 && json.path("sentToQueue").asBoolean()) {
+				pending.put(json.get("batchId").asText(), begin);
+				acceptedBatches.incrementAndGet();
+				acceptedPointages.addAndGet(json.path("totalPointages").asLong());
+			} else {
+				rejected.incrementAndGet();
+			}
+		} catch (IOException e) {
+			rejected.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Répartition des tailles: surtout des synchronisations temps réel, quelques rattrapages
+	 */
+	private static int batchSize(ThreadLocalRandom random) {
+		int draw = random.nextInt(100);
+		if (draw < 60) {
+			return random.nextInt(1, 6);
+		}
+		if (draw < 90) {
+			return random.nextInt(10, 51);
+		}
+		if (draw < 98) {
+			return random.nextInt(100, 301);
+		}
+		return random.nextInt(500, 1001);
+	}
+
+	private static PointageBatchRequestDto standardRequest(int size) {
+		// Heures distinctes pour ne pas être écarté par la déduplication
+		LocalDateTime base = LocalDateTime.now().minusMinutes(ThreadLocalRandom.current().nextInt(1, 60 * 24 * 7));
+		long matricule = ThreadLocalRandom.current().nextLong(1, 1_000_000);
+		PointageBatchRequestDto request = new PointageBatchRequestDto();
+		request.setPointages(IntStream.range(0, size)
+				.mapToObj(i -> new PointageOfflineDto(matricule + i,
+						base.minusNanos(ThreadLocalRandom.current().nextLong(1, 1_000_000_000))))
+				.toList());
+		return request;
+	}
+
+	private static PointageTerrainBatchRequestDto terrainRequest(int size) {
+		LocalDateTime base = LocalDateTime.now().minusMinutes(ThreadLocalRandom.current().nextInt(1, 60 * 24 * 7));
+		PointageTerrainBatchRequestDto request = new PointageTerrainBatchRequestDto();
+		request.setPointages(IntStream.range(0, size)
+				.mapToObj(i -> new PointageTerrainOfflineDto(
+						base.minusSeconds(i).minusNanos(ThreadLocalRandom.current().nextLong(1, 1_000_000_000)),
+						14.6937 + ThreadLocalRandom.current().nextDouble(-0.05, 0.05),
+						-17.4441 + ThreadLocalRandom.current().nextDouble(-0.05, 0.05)))
+				.toList());
+		return request;
+	}
+
+	// ========== SUIVI DES BATCHS ==========
+
+	private void pollCompletions() {
+		List<String> ids = pending.keySet().stream().limit(500).toList();
+		if (ids.isEmpty()) {
+			return;
+		}
+		try {
+			BulkStatusRequestDto request = new BulkStatusRequestDto(ids);
+			HttpResponse<byte[]> response = http.send(
+					post("agent-0@seneau.sn", "/status/bulk", objectMapper.writeValueAsBytes(request)),
+					HttpResponse.BodyHandlers.ofByteArray());
+			long now = System.nanoTime();
+			for (JsonNode status : objectMapper.readTree(response.body()).path("statuses")) {
+				String value = status.path("status").asText();
+				if (TERMINAL.contains(value)) {
+					Long submitted = pending.remove(status.path("batchId").asText());
+					if (submitted != null) {
+						completionLatencies.add(now - submitted);
+						outcomes.computeIfAbsent(value, k -> new AtomicLong()).incrementAndGet();
+					}
+				}
+			}
+		} catch (IOException e) {
+			// Relevé suivant
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private HttpRequest post(String agent, String path, byte[] body) {
+		String credentials = Base64.getEncoder().encodeToString((agent + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/offline-sync" + path))
+				.header("Content-Type", "application/json")
+				.header("Authorization", "Basic " + credentials)
+				.timeout(Duration.ofSeconds(30))
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+	}
+
+	// ========== RAPPORT ==========
+
+	/**
+	 * Relevés périodiques: connexions base, appels en cours vers le service de pointage, profondeur des queues
+	 */
+	private final class Sampler {
+
+		private final Stats dbActive = new Stats();
+		private final Stats dbPending = new Stats();
+		private final Stats inFlight = new Stats();
+		private final Stats limit = new Stats();
+		private final Stats queueDepth = new Stats();
+		private final Stats consumers = new Stats();
+
+		void sample() {
+			dbActive.add(gauge("hikaricp.connections.active"));
+			dbPending.add(gauge("hikaricp.connections.pending"));
+			inFlight.add(gauge("sync.pointage.limiter.inflight"));
+			limit.add(gauge("sync.pointage.limiter.limit"));
+			long depth = 0;
+			long consumerCount = 0;
+			for (String queue : pointageShards.getQueueNames()) {
+				QueueInformation info = amqpAdmin.getQueueInfo(queue);
+				if (info != null) {
+					depth += info.getMessageCount();
+					consumerCount += info.getConsumerCount();
+				}
+			}
+			queueDepth.add(depth);
+			consumers.add(consumerCount);
+		}
+
+		private double gauge(String name) {
+			Gauge gauge = meterRegistry.find(name).gauge();
+			return gauge != null ? gauge.value() : 0;
+		}
+	}
+
+	private static final class Stats {
+
+		private double sum;
+		private double max;
+		private long count;
+
+		synchronized void add(double value) {
+			sum += value;
+			max = Math.max(max, value);
+			count++;
+		}
+
+		synchronized String format() {
+			return String.format("moy %6.1f   max %6.1f", count > 0 ? sum / count : 0, max);
+		}
+	}
+
+	private void report(double ingestSeconds, double totalSeconds) {
+		Gauge maxPool = meterRegistry.find("hikaricp.connections.max").gauge();
+		Timer downstream = meterRegistry.find("sync.stage.duration")
+				.tags("stage", "downstream", "outcome", "success").timer();
+
+		System.out.println();
+		System.out.println("========== Test de charge ==========");
+		System.out.printf("Durée d'injection           %.0f s (%d clients, %d agents), vidage %.0f s%n",
+				ingestSeconds, CONCURRENCY, AGENTS, totalSeconds - ingestSeconds);
+		System.out.printf("Service factice             latence %s ms, taux d'erreur %s%n",
+				System.getProperty("loadtest.stub.latency-ms", "20"), System.getProperty("loadtest.stub.error-rate", "0.01"));
+		System.out.printf("Ingestion                   %.1f batchs/s   %.1f pointages/s   (%d refusés)%n",
+				acceptedBatches.get() / ingestSeconds, acceptedPointages.get() / ingestSeconds, rejected.get());
+		System.out.printf("Réponse HTTP                %s%n", percentiles(httpLatencies));
+		System.out.printf("Batch soumis → terminé      %s%n", percentiles(completionLatencies));
+		System.out.printf("Statuts finaux              %s (non terminés: %d)%n", outcomes, pending.size());
+		System.out.printf("Connexions base actives     %s   (pool %.0f)%n", sampler.dbActive.format(),
+				maxPool != null ? maxPool.value() : 0);
+		System.out.printf("Connexions base en attente  %s%n", sampler.dbPending.format());
+		System.out.printf("Appels pointage en cours    %s   (limite %s)%n", sampler.inFlight.format(), sampler.limit.format());
+		System.out.printf("Messages en queue           %s   (consumers %s)%n", sampler.queueDepth.format(), sampler.consumers.format());
+		if (downstream != null) {
+			System.out.printf("Appel pointage (succès)     %d appels, moy %.1f ms, max %.1f ms%n",
+					downstream.count(), downstream.mean(TimeUnit.MILLISECONDS), downstream.max(TimeUnit.MILLISECONDS));
+		}
+		System.out.println("====================================");
+	}
+
+	private static String percentiles(List<Long> nanos) {
+		long[] sorted;
+		synchronized (nanos) {
+			sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+		}
+		if (sorted.length == 0) {
+			return "aucune mesure";
+		}
+		return String.format("p50 %8.1f ms   p95 %8.1f ms   p99 %8.1f ms   max %8.1f ms",
+				sorted[sorted.length / 2] / 1e6,
+				sorted[(int) (sorted.length * 0.95)] / 1e6,
+				sorted[(int) (sorted.length * 0.99)] / 1e6,
+				sorted[sorted.length - 1] / 1e6);
+	}
+
+	private static StubPointageServer startStub() {
+		try {
+			return new StubPointageServer(
+					Long.getLong("loadtest.stub.latency-ms", 20),
+					Double.parseDouble(System.getProperty("loadtest.stub.error-rate", "0.01")));
+		} catch (IOException e) {
+			throw new IllegalStateException("Impossible de démarrer le service de pointage factice", e);
+		}
+	}
+
+	/**
+	 * Sécurité du test: authentification basique des agents, sans CSRF
+	 */
+	@TestConfiguration
+	static class LoadTestSecurity {
+
+		@Bean
+		SecurityFilterChain loadTestFilterChain(HttpSecurity http) throws Exception {
+			return http
+					.csrf(AbstractHttpConfigurer::disable)
+					.authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+					.httpBasic(Customizer.withDefaults())
+					.build();
+		}
+
+		@Bean
+		UserDetailsService loadTestAgents() {
+			List<UserDetails> agents = IntStream.range(0, AGENTS)
+					.mapToObj(i -> User.withUsername("agent-" + i + "@seneau.sn")
+							.password("{noop}" + PASSWORD)
+							.roles("AGENT")
+							.build())
+					.toList();
+			return new InMemoryUserDetailsManager(agents);
+		}
+	}
+}
@@ -23,15 +23,15 @@ public class CustomErrorDecoder implements ErrorDecoder {
         switch (response.status()) {
             case 400:
                 return new PointageServiceException(
-                    "Données invalides: " + errorMessage
+                    "Données invalides: " + errorMessage, 400
                 );
             case 404:
                 return new PointageServiceException(
-                    "Service de pointage non disponible"
+                    "Service de pointage non disponible", 404
                 );
             case 500:
                 return new PointageServiceException(
-                    "Erreur interne du service de pointage: " + errorMessage
+                    "Erreur interne du service de pointage: " + errorMessage, 500
                 );
             default:
                 return defaultErrorDecoder.decode(methodKey, response);
@@ -1,19 +1,47 @@
 package com.seneau.offline_sync_service.config;
 
-import feign.Logger;
+import feign.Client;
 import feign.RequestInterceptor;
 import feign.codec.ErrorDecoder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.FeignLoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @Slf4j
 public class FeignConfig {
 
+    /**
+     * Journalisation échantillonnée et tronquée (niveau: spring.cloud.openfeign...loggerLevel)
+     */
+    @Bean
+    public FeignLoggerFactory feignLoggerFactory(
+            @Value("${sync.pointage-client.log.sample-rate:0.01}") double sampleRate,
+            @Value("${sync.pointage-client.log.max-body-chars:2048}") int maxBodyChars) {
+        return type -> new SampledFeignLogger(type, sampleRate, maxBodyChars);
+    }
+
+    /**
+     * Transport keep-alive borné par hôte (sync.pointage-client.transport: pooled)
+     * Avec transport: default, Feign garde HttpURLConnection
+     */
     @Bean
-    Logger.Level feignLoggerLevel() {
-        return Logger.Level.FULL;
+    @ConditionalOnProperty(name = "sync.pointage-client.transport", havingValue = "pooled", matchIfMissing = true)
+    public Client feignClient(
+            @Value("${spring.cloud.openfeign.client.config.default.connectTimeout:5000}") long connectTimeoutMs,
+            @Value("${sync.pointage-client.http2:false}") boolean http2,
+            @Value("${sync.pointage-client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${sync.pointage-client.compression.enabled:false}") boolean compressRequests,
+            @Value("${sync.pointage-client.compression.min-request-size:8192}") int minCompressSize) {
+        log.info("🔌 Client pointage: transport poolé ({} connexions max par hôte, HTTP/2: {}, gzip: {})",
+                 maxConnectionsPerRoute, http2, compressRequests);
+        return new PooledHttpClient(Duration.ofMillis(connectTimeoutMs), http2, maxConnectionsPerRoute,
+                compressRequests, minCompressSize);
     }
 
     @Bean
@@ -0,0 +1,82 @@
+package com.seneau.offline_sync_service.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Répartition des batchs sur des queues shardées par email
+ * Tous les batchs d'un agent vont dans la même queue; les listeners consomment toutes les queues
+ * en parallèle, si bien que le backlog d'un agent ne retarde que les agents de son shard
+ * (environ 1/count des agents). Hash cohérent (jump hash): augmenter le nombre de shards
+ * ne déplace que la part des agents attribuée aux nouvelles queues
+ */
+public class PointageShards {
+
+    private final int count;
+
+    public PointageShards(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("sync.shards.count doit être >= 1");
+        }
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int shardFor(String email) {
+        return email == null ? 0 : jumpHash(hash(email), count);
+    }
+
+    public String routingKey(String email) {
+        return routingKey(shardFor(email));
+    }
+
+    public static String routingKey(int shard) {
+        return RabbitConfig.POINTAGE_ROUTING_KEY + ".shard-" + shard;
+    }
+
+    public static String queueName(int shard) {
+        return RabbitConfig.POINTAGE_QUEUE + ".shard-" + shard;
+    }
+
+    /**
+     * Jump consistent hash (Lamping et Veach): en passant de n à m shards,
+     * seuls (m - n) / m des agents changent de queue
+     */
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    // FNV-1a 64 bits puis finaliseur de SplitMix64: String.hashCode regroupe les emails proches
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Queues consommées par les listeners: les shards et l'ancienne queue unique
+     * (messages publiés avant le sharding)
+     */
+    public String[] getQueueNames() {
+        List<String> names = new ArrayList<>();
+        IntStream.range(0, count).mapToObj(PointageShards::queueName).forEach(names::add);
+        names.add(RabbitConfig.POINTAGE_QUEUE);
+        return names.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,132 @@
+package com.seneau.offline_sync_service.config;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transport Feign sur le client HTTP du JDK: connexions keep-alive réutilisées,
+ * HTTP/2 optionnel, corps de requête compressés en gzip au-delà d'une taille
+ * Le nombre d'appels simultanés par hôte est borné, donc aussi le nombre de connexions HTTP/1.1
+ */
+public class PooledHttpClient implements Client {
+
+    // En-têtes gérés par le client du JDK, refusés dans une requête
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient httpClient;
+    private final int maxConnectionsPerRoute;
+    private final boolean compressRequests;
+    private final int minCompressSize;
+    private final Map<String, Semaphore> routes = new ConcurrentHashMap<>();
+
+    public PooledHttpClient(Duration connectTimeout, boolean http2, int maxConnectionsPerRoute,
+                            boolean compressRequests, int minCompressSize) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.compressRequests = compressRequests;
+        this.minCompressSize = minCompressSize;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        URI uri = URI.create(request.url());
+        Semaphore route = routes.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(),
+                k -> new Semaphore(maxConnectionsPerRoute));
+        try {
+            if (!route.tryAcquire(options.readTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("Aucune connexion disponible vers " + uri.getAuthority());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        try {
+            HttpResponse<byte[]> response = httpClient.send(toHttpRequest(request, options),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            return toResponse(request, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } finally {
+            route.release();
+        }
+    }
+
+    private HttpRequest toHttpRequest(Request request, Request.Options options) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.url()))
+                .timeout(Duration.ofMillis(options.readTimeoutMillis()));
+        request.headers().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        builder.header("Accept-Encoding", "gzip");
+
+        byte[] body = request.body();
+        if (body == null || body.length == 0) {
+            return builder.method(request.httpMethod().name(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        if (compressRequests && body.length >= minCompressSize) {
+            body = gzip(body);
+            builder.header("Content-Encoding", "gzip");
+        }
+        return builder.method(request.httpMethod().name(), HttpRequest.BodyPublishers.ofByteArray(body)).build();
+    }
+
+    private static Response toResponse(Request request, HttpResponse<byte[]> response) throws IOException {
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.headers().map().forEach((name, values) -> headers.put(name, List.copyOf(values)));
+
+        byte[] body = response.body();
+        if (response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent()) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+            headers.remove("Content-Encoding");
+            headers.remove("Content-Length");
+        }
+        return Response.builder()
+                .status(response.statusCode())
+                .headers(headers)
+                .body(body)
+                .protocolVersion(response.version() == HttpClient.Version.HTTP_2
+                        ? Request.ProtocolVersion.HTTP_2 : Request.ProtocolVersion.HTTP_1_1)
+                .request(request)
+                .build();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,14 +1,20 @@
 package com.seneau.offline_sync_service.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.service.QueueWaitMetrics;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 public class RabbitConfig {
 
@@ -22,6 +28,50 @@ public class RabbitConfig {
     public static final String DLQ_QUEUE = "pointage.offline.dlq.queue";
     public static final String DLQ_ROUTING_KEY = "pointage.offline.dlq.routing";
 
+    // Diffusion des libérations d'empreintes de déduplication à toutes les instances
+    public static final String DEDUP_RELEASE_EXCHANGE = "pointage.sync.dedup.fanout";
+
+    // Diffusion des changements de statut des batchs (cache de statuts de chaque instance)
+    public static final String STATUS_EVENTS_EXCHANGE = "pointage.sync.status.fanout";
+
+    // Listeners de la queue principale (suspendus par le disjoncteur du service de pointage)
+    public static final String POINTAGE_LISTENER_ID = "pointageListener";
+    public static final String POINTAGE_BATCH_LISTENER_ID = "pointageBatchListener";
+
+    // Capacité nominale des listeners (réduite par le disjoncteur en semi-ouvert)
+    public static final int LISTENER_CONCURRENT_CONSUMERS = 3;
+    public static final int LISTENER_MAX_CONCURRENT_CONSUMERS = 10;
+    public static final int LISTENER_PREFETCH = 5; // Par channel (global QoS), toutes queues confondues
+
+    // Paliers de retry différé: un exchange fanout + une queue TTL par délai
+    public static final List<Long> RETRY_DELAYS_MS = List.of(2000L, 4000L, 8000L);
+
+    public static String retryExchange(long delayMs) {
+        return "pointage.sync.retry." + delayMs + "ms.exchange";
+    }
+
+    public static String retryQueue(long delayMs) {
+        return "pointage.offline.retry." + delayMs + "ms.queue";
+    }
+
+    /**
+     * Plus petit palier couvrant le délai demandé (le plus long palier au-delà)
+     */
+    public static long delayTierFor(long delayMs) {
+        return RETRY_DELAYS_MS.stream()
+                .filter(tier -> tier >= delayMs)
+                .findFirst()
+                .orElse(RETRY_DELAYS_MS.get(RETRY_DELAYS_MS.size() - 1));
+    }
+
+    /**
+     * Délai de backoff pour une tentative donnée (0 → 2s, 1 → 4s, 2+ → 8s)
+     */
+    public static long retryDelayFor(int retryCount) {
+        int tier = Math.max(0, Math.min(retryCount, RETRY_DELAYS_MS.size() - 1));
+        return RETRY_DELAYS_MS.get(tier);
+    }
+
     /**
      * Exchange principal pour les pointages
      */
@@ -54,6 +104,31 @@ public class RabbitConfig {
                 .with(POINTAGE_ROUTING_KEY);
     }
 
+    @Bean
+    public PointageShards pointageShards(@Value("${sync.shards.count:32}") int count) {
+        return new PointageShards(count);
+    }
+
+    /**
+     * Queues shardées par email, mêmes arguments que la queue principale plus la priorité
+     */
+    @Bean
+    public Declarables pointageShardQueues(PointageShards pointageShards, DirectExchange pointageExchange,
+                                           @Value("${sync.priority.max-priority:9}") int maxPriority) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int shard = 0; shard < pointageShards.getCount(); shard++) {
+            Queue queue = QueueBuilder.durable(PointageShards.queueName(shard))
+                    .withArgument("x-dead-letter-exchange", DLQ_EXCHANGE)
+                    .withArgument("x-dead-letter-routing-key", DLQ_ROUTING_KEY)
+                    .withArgument("x-message-ttl", 3600000) // 1 heure
+                    .maxPriority(maxPriority)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(pointageExchange).with(PointageShards.routingKey(shard)));
+        }
+        return new Declarables(declarables);
+    }
+
     /**
      * Dead Letter Exchange
      */
@@ -82,20 +157,93 @@ public class RabbitConfig {
     }
 
     /**
-     * Converter JSON pour sérialiser/désérialiser les messages
+     * Paliers de retry différé
+     * Les messages expirent dans la queue du palier puis sont renvoyés
+     * vers l'exchange principal avec leur routing key d'origine
+     */
+    @Bean
+    public Declarables retryTiers() {
+        List<Declarable> declarables = new ArrayList<>();
+        for (Long delayMs : RETRY_DELAYS_MS) {
+            FanoutExchange exchange = new FanoutExchange(retryExchange(delayMs), true, false);
+            Queue queue = QueueBuilder.durable(retryQueue(delayMs))
+                    .withArgument("x-message-ttl", delayMs)
+                    .withArgument("x-dead-letter-exchange", POINTAGE_EXCHANGE)
+                    .build();
+            declarables.add(exchange);
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange));
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Exchange fanout des libérations d'empreintes
      */
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public FanoutExchange dedupReleaseExchange() {
+        return new FanoutExchange(DEDUP_RELEASE_EXCHANGE, true, false);
     }
 
     /**
-     * RabbitTemplate configuré avec le converter JSON
+     * Queue anonyme propre à chaque instance (supprimée à l'arrêt)
      */
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public Queue dedupReleaseQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding dedupReleaseBinding(Queue dedupReleaseQueue, FanoutExchange dedupReleaseExchange) {
+        return BindingBuilder.bind(dedupReleaseQueue).to(dedupReleaseExchange);
+    }
+
+    /**
+     * Exchange fanout des changements de statut
+     */
+    @Bean
+    public FanoutExchange statusEventsExchange() {
+        return new FanoutExchange(STATUS_EVENTS_EXCHANGE, true, false);
+    }
+
+    /**
+     * Queue anonyme propre à chaque instance pour les changements de statut
+     */
+    @Bean
+    public Queue statusEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding statusEventsBinding(Queue statusEventsQueue, FanoutExchange statusEventsExchange) {
+        return BindingBuilder.bind(statusEventsQueue).to(statusEventsExchange);
+    }
+
+    /**
+     * Converter des messages: binaire compact pour SyncMessageDto si activé, JSON sinon
+     * La lecture accepte toujours les deux formats (choix par content-type)
+     * Le converter JSON réutilise l'ObjectMapper de Spring (support des dates java.time)
+     */
+    @Bean
+    public MessageConverter messageConverter(
+            ObjectMapper objectMapper,
+            @Value("${sync.wire.format:json}") String wireFormat,
+            @Value("${sync.wire.compression-threshold-bytes:4096}") int compressionThreshold) {
+        return new SyncMessageConverter(new Jackson2JsonMessageConverter(objectMapper),
+                "binary".equalsIgnoreCase(wireFormat), compressionThreshold);
+    }
+
+    /**
+     * RabbitTemplate configuré avec le converter des messages
+     * Publie sur la connexion publisher de la CachingConnectionFactory
+     */
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(jsonMessageConverter());
+        template.setMessageConverter(messageConverter);
+        template.setMandatory(true); // Les messages non routés font échouer la publication asynchrone
+        // Connexion dédiée aux publications: pas de contention avec les channels des listeners
+        template.setUsePublisherConnection(true);
         return template;
     }
 
@@ -105,14 +253,45 @@ public class RabbitConfig {
      */
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
-            ConnectionFactory connectionFactory) {
+            ConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            QueueWaitMetrics queueWaitMetrics) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(jsonMessageConverter());
-        factory.setConcurrentConsumers(3); // 3 consumers en parallèle
-        factory.setMaxConcurrentConsumers(10);
-        factory.setPrefetchCount(5); // Préfetch 5 messages
+        factory.setMessageConverter(messageConverter);
+        factory.setAfterReceivePostProcessors(queueWaitMetrics);
+        factory.setConcurrentConsumers(LISTENER_CONCURRENT_CONSUMERS); // 3 consumers en parallèle
+        factory.setMaxConcurrentConsumers(LISTENER_MAX_CONCURRENT_CONSUMERS);
+        factory.setPrefetchCount(LISTENER_PREFETCH); // Préfetch 5 messages par channel
+        factory.setGlobalQos(true); // Sinon le prefetch s'applique à chacune des queues shardées écoutées
         factory.setDefaultRequeueRejected(false); // Pas de requeue, envoyer au DLQ
         return factory;
     }
+
+    /**
+     * Container Factory pour le listener en mode batch
+     * Accumule jusqu'à batchSize messages, ou s'arrête après receiveTimeout ms sans nouveau message
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            QueueWaitMetrics queueWaitMetrics,
+            @Value("${sync.consumer.batch.size:50}") int batchSize,
+            @Value("${sync.consumer.batch.receive-timeout-ms:200}") long receiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setAfterReceivePostProcessors(queueWaitMetrics);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setPrefetchCount(batchSize); // Le prefetch doit couvrir un lot complet
+        factory.setGlobalQos(true); // Un lot par channel, réparti entre les queues shardées
+        factory.setConcurrentConsumers(LISTENER_CONCURRENT_CONSUMERS);
+        factory.setMaxConcurrentConsumers(LISTENER_MAX_CONCURRENT_CONSUMERS);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
 }
@@ -0,0 +1,61 @@
+package com.seneau.offline_sync_service.config;
+
+import feign.Request;
+import feign.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logger Feign échantillonné: seule une fraction des appels est journalisée,
+ * et les corps sont tronqués. Les appels non retenus ne relisent pas la réponse en mémoire
+ */
+public class SampledFeignLogger extends feign.Logger {
+
+    // Décision prise à la requête, relue pour la réponse (Feign appelle les deux sur le même thread)
+    private static final ThreadLocal<Boolean> SAMPLED = ThreadLocal.withInitial(() -> false);
+
+    private final Logger logger;
+    private final double sampleRate;
+    private final int maxBodyChars;
+
+    public SampledFeignLogger(Class<?> clazz, double sampleRate, int maxBodyChars) {
+        this.logger = LoggerFactory.getLogger(clazz);
+        this.sampleRate = sampleRate;
+        this.maxBodyChars = maxBodyChars;
+    }
+
+    @Override
+    protected void logRequest(String configKey, Level logLevel, Request request) {
+        boolean sampled = logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        SAMPLED.set(sampled);
+        if (sampled) {
+            super.logRequest(configKey, logLevel, request);
+        }
+    }
+
+    @Override
+    protected Response logAndRebufferResponse(String configKey, Level logLevel, Response response,
+                                              long elapsedTime) throws IOException {
+        if (!SAMPLED.get()) {
+            return response;
+        }
+        SAMPLED.set(false);
+        return super.logAndRebufferResponse(configKey, logLevel, response, elapsedTime);
+    }
+
+    @Override
+    protected void log(String configKey, String format, Object... args) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof String text && text.length() > maxBodyChars) {
+                args[i] = text.substring(0, maxBodyChars) + "… (" + text.length() + " caractères)";
+            }
+        }
+        logger.debug(String.format(methodTag(configKey) + format, args));
+    }
+}
@@ -0,0 +1,434 @@
+package com.seneau.offline_sync_service.config;
+
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Converter des messages RabbitMQ avec format binaire compact pour SyncMessageDto
+ * Les pointages sont stockés par colonnes: heures en secondes epoch codées en delta,
+ * matricules en varint, latitude/longitude en virgule fixe (1e-7 degré, ~1 cm).
+ * Le format est choisi à la lecture d'après le content-type: les messages JSON
+ * (publiés avant l'activation, ou autres DTOs) restent lus par le converter JSON
+ */
+public class SyncMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE_BINARY = "application/x-sync-message-v1";
+    public static final String CONTENT_ENCODING_GZIP = "gzip";
+
+    private static final byte VERSION = 1;
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final int FLAG_NANOS = 1;
+
+    private final MessageConverter jsonConverter;
+    private final boolean binaryEnabled;
+    private final int compressionThreshold;
+
+    public SyncMessageConverter(MessageConverter jsonConverter, boolean binaryEnabled, int compressionThreshold) {
+        this.jsonConverter = jsonConverter;
+        this.binaryEnabled = binaryEnabled;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (binaryEnabled && object instanceof SyncMessageDto message) {
+            byte[] body = encode(message);
+            if (body != null) {
+                messageProperties.setContentType(CONTENT_TYPE_BINARY);
+                if (body.length >= compressionThreshold) {
+                    body = gzip(body);
+                    messageProperties.setContentEncoding(CONTENT_ENCODING_GZIP);
+                }
+                messageProperties.setContentLength(body.length);
+                return new Message(body, messageProperties);
+            }
+        }
+        return jsonConverter.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        if (!CONTENT_TYPE_BINARY.equals(properties.getContentType())) {
+            return jsonConverter.fromMessage(message);
+        }
+        byte[] body = message.getBody();
+        if (CONTENT_ENCODING_GZIP.equals(properties.getContentEncoding())) {
+            body = gunzip(body);
+        }
+        return decode(body);
+    }
+
+    // ========== ENCODAGE ==========
+
+    /**
+     * Encoder un message; null si un pointage ne se prête pas au format (champ obligatoire absent)
+     */
+    public static byte[] encode(SyncMessageDto message) {
+        if (!encodable(message)) {
+            return null;
+        }
+        Writer out = new Writer();
+        out.writeByte(VERSION);
+        out.writeString(message.getBatchId());
+        out.writeString(message.getEmail());
+        out.writeVarint(message.getTypePointage() != null ? message.getTypePointage().ordinal() + 1 : 0);
+        writeStrings(out, message.getPrivileges());
+        writeDateTime(out, message.getCreatedAt());
+        out.writeNullableInt(message.getRetryCount());
+        out.writeNullableInt(message.getMaxRetries());
+        writeStandard(out, message.getPointages());
+        writeTerrain(out, message.getPointagesTerrain());
+        // Champs ajoutés après la v1 initiale: en fin de message, lus seulement s'ils sont présents
+        out.writeString(message.getPayloadRef());
+        return out.toByteArray();
+    }
+
+    private static boolean encodable(SyncMessageDto message) {
+        if (message.getPointages() != null) {
+            for (PointageOfflineDto p : message.getPointages()) {
+                if (p == null || p.getMatricule() == null || p.getHeurePointage() == null) {
+                    return false;
+                }
+            }
+        }
+        if (message.getPointagesTerrain() != null) {
+            for (PointageTerrainOfflineDto p : message.getPointagesTerrain()) {
+                if (p == null || p.getHeurePointage() == null || p.getLatitude() == null || p.getLongitude() == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void writeStandard(Writer out, List<PointageOfflineDto> pointages) {
+        out.writeVarint(pointages != null ? pointages.size() + 1L : 0);
+        if (pointages == null) {
+            return;
+        }
+        boolean nanos = pointages.stream().anyMatch(p -> p.getHeurePointage().getNano() != 0);
+        out.writeByte(nanos ? FLAG_NANOS : 0);
+        long previous = 0;
+        for (PointageOfflineDto p : pointages) {
+            out.writeSignedVarint(p.getMatricule() - previous);
+            previous = p.getMatricule();
+        }
+        writeHeures(out, pointages.stream().map(PointageOfflineDto::getHeurePointage).toList(), nanos);
+    }
+
+    private static void writeTerrain(Writer out, List<PointageTerrainOfflineDto> pointages) {
+        out.writeVarint(pointages != null ? pointages.size() + 1L : 0);
+        if (pointages == null) {
+            return;
+        }
+        boolean nanos = pointages.stream().anyMatch(p -> p.getHeurePointage().getNano() != 0);
+        out.writeByte(nanos ? FLAG_NANOS : 0);
+        writeHeures(out, pointages.stream().map(PointageTerrainOfflineDto::getHeurePointage).toList(), nanos);
+        long previous = 0;
+        for (PointageTerrainOfflineDto p : pointages) {
+            long fixed = Math.round(p.getLatitude() * COORDINATE_SCALE);
+            out.writeSignedVarint(fixed - previous);
+            previous = fixed;
+        }
+        previous = 0;
+        for (PointageTerrainOfflineDto p : pointages) {
+            long fixed = Math.round(p.getLongitude() * COORDINATE_SCALE);
+            out.writeSignedVarint(fixed - previous);
+            previous = fixed;
+        }
+    }
+
+    private static void writeHeures(Writer out, List<LocalDateTime> heures, boolean nanos) {
+        long previous = 0;
+        for (LocalDateTime heure : heures) {
+            long epoch = heure.toEpochSecond(ZoneOffset.UTC);
+            out.writeSignedVarint(epoch - previous);
+            previous = epoch;
+        }
+        if (nanos) {
+            for (LocalDateTime heure : heures) {
+                out.writeVarint(heure.getNano());
+            }
+        }
+    }
+
+    private static void writeStrings(Writer out, List<String> values) {
+        out.writeVarint(values != null ? values.size() + 1L : 0);
+        if (values != null) {
+            values.forEach(out::writeString);
+        }
+    }
+
+    private static void writeDateTime(Writer out, LocalDateTime value) {
+        out.writeByte(value != null ? 1 : 0);
+        if (value != null) {
+            out.writeSignedVarint(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeVarint(value.getNano());
+        }
+    }
+
+    // ========== DÉCODAGE ==========
+
+    public static SyncMessageDto decode(byte[] body) {
+        try {
+            Reader in = new Reader(ByteBuffer.wrap(body));
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new MessageConversionException("Version de format binaire inconnue: " + version);
+            }
+            SyncMessageDto message = new SyncMessageDto();
+            message.setBatchId(in.readString());
+            message.setEmail(in.readString());
+            int type = (int) in.readVarint();
+            message.setTypePointage(type == 0 ? null : TypePointageSync.values()[type - 1]);
+            message.setPrivileges(readStrings(in));
+            message.setCreatedAt(readDateTime(in));
+            message.setRetryCount(in.readNullableInt());
+            message.setMaxRetries(in.readNullableInt());
+            message.setPointages(readStandard(in));
+            message.setPointagesTerrain(readTerrain(in));
+            if (in.hasRemaining()) {
+                message.setPayloadRef(in.readString());
+            }
+            return message;
+        } catch (RuntimeException e) {
+            if (e instanceof MessageConversionException conversion) {
+                throw conversion;
+            }
+            throw new MessageConversionException("Message binaire invalide", e);
+        }
+    }
+
+    private static List<PointageOfflineDto> readStandard(Reader in) {
+        int count = (int) in.readVarint() - 1;
+        if (count < 0) {
+            return null;
+        }
+        boolean nanos = (in.readByte() & FLAG_NANOS) != 0;
+        long[] matricules = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += in.readSignedVarint();
+            matricules[i] = previous;
+        }
+        LocalDateTime[] heures = readHeures(in, count, nanos);
+        List<PointageOfflineDto> pointages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pointages.add(new PointageOfflineDto(matricules[i], heures[i]));
+        }
+        return pointages;
+    }
+
+    private static List<PointageTerrainOfflineDto> readTerrain(Reader in) {
+        int count = (int) in.readVarint() - 1;
+        if (count < 0) {
+            return null;
+        }
+        boolean nanos = (in.readByte() & FLAG_NANOS) != 0;
+        LocalDateTime[] heures = readHeures(in, count, nanos);
+        double[] latitudes = readCoordinates(in, count);
+        double[] longitudes = readCoordinates(in, count);
+        List<PointageTerrainOfflineDto> pointages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pointages.add(new PointageTerrainOfflineDto(heures[i], latitudes[i], longitudes[i]));
+        }
+        return pointages;
+    }
+
+    private static LocalDateTime[] readHeures(Reader in, int count, boolean nanos) {
+        long[] epochs = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += in.readSignedVarint();
+            epochs[i] = previous;
+        }
+        LocalDateTime[] heures = new LocalDateTime[count];
+        for (int i = 0; i < count; i++) {
+            int nano = nanos ? (int) in.readVarint() : 0;
+            heures[i] = LocalDateTime.ofEpochSecond(epochs[i], nano, ZoneOffset.UTC);
+        }
+        return heures;
+    }
+
+    private static double[] readCoordinates(Reader in, int count) {
+        double[] values = new double[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += in.readSignedVarint();
+            values[i] = previous / COORDINATE_SCALE;
+        }
+        return values;
+    }
+
+    private static List<String> readStrings(Reader in) {
+        int count = (int) in.readVarint() - 1;
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readString());
+        }
+        return values;
+    }
+
+    private static LocalDateTime readDateTime(Reader in) {
+        if (in.readByte() == 0) {
+            return null;
+        }
+        long epoch = in.readSignedVarint();
+        return LocalDateTime.ofEpochSecond(epoch, (int) in.readVarint(), ZoneOffset.UTC);
+    }
+
+    // ========== COMPRESSION ==========
+
+    public static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new MessageConversionException("Compression impossible", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte[] gunzip(byte[] body) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new MessageConversionException("Décompression impossible", e);
+        }
+    }
+
+    // ========== VARINTS ==========
+
+    /**
+     * Tampon d'écriture: varints LEB128, entiers signés en zigzag
+     */
+    private static final class Writer {
+        private byte[] buffer = new byte[256];
+        private int position;
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeNullableInt(Integer value) {
+            writeVarint(value != null ? ((((long) value) << 1) ^ (value >> 31)) + 1 : 0);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[position];
+            System.arraycopy(buffer, 0, result, 0, position);
+            return result;
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, position + extra)];
+                System.arraycopy(buffer, 0, grown, 0, position);
+                buffer = grown;
+            }
+        }
+    }
+
+    /**
+     * Lecture symétrique de Writer
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer.get();
+        }
+
+        boolean hasRemaining() {
+            return buffer.hasRemaining();
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new MessageConversionException("Varint invalide");
+        }
+
+        long readSignedVarint() {
+            long raw = readVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        Integer readNullableInt() {
+            long raw = readVarint();
+            if (raw == 0) {
+                return null;
+            }
+            raw -= 1;
+            return (int) ((raw >>> 1) ^ -(raw & 1));
+        }
+
+        String readString() {
+            int length = (int) readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.seneau.offline_sync_service.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Message en attente de publication vers RabbitMQ
+ * Écrit dans la même transaction que le batch, publié puis supprimé par le relais
+ */
+@Entity
+@Table(name = "sync_outbox", indexes = {
+    @Index(name = "idx_outbox_available_at", columnList = "availableAt, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String batchId;
+
+    @Column(nullable = false)
+    private String exchange;
+
+    @Column(nullable = false)
+    private String routingKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload; // SyncMessageDto sérialisé en JSON
+
+    private Integer priority; // Calculée avant le claim-check, quand les pointages sont encore connus
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime availableAt; // Prochaine tentative de publication
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (availableAt == null) {
+            availableAt = createdAt;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+}
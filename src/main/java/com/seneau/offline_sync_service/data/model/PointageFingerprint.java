@@ -0,0 +1,32 @@
+package com.seneau.offline_sync_service.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Empreinte 64 bits d'un pointage déjà publié
+ * Sert de stockage persistant à l'index de déduplication en mémoire
+ */
+@Entity
+@Table(name = "pointage_fingerprints", indexes = {
+    @Index(name = "idx_fingerprint_batch_id", columnList = "batchId"),
+    @Index(name = "idx_fingerprint_heure", columnList = "heurePointage")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PointageFingerprint {
+
+    @Id
+    private Long fingerprint;
+
+    @Column(nullable = false, length = 36)
+    private String batchId;
+
+    @Column(nullable = false)
+    private LocalDateTime heurePointage;
+}
@@ -1,17 +1,24 @@
 package com.seneau.offline_sync_service.data.model;
 
-import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
+/**
+ * Batch de synchronisation
+ * Le mapping vaut pour les deux schémas: table simple (contraintes uniques créées par ddl-auto)
+ * ou table partitionnée après la migration du README (clé (id, created_at), index non uniques).
+ * id reste l'identifiant JPA: il vient de la même séquence et reste unique dans les deux cas
+ */
 @Entity
-@Table(name = "sync_batches", indexes = {
+@Table(name = "sync_batches", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_email_idempotency_key", columnNames = {"email", "idempotencyKey"})
+}, indexes = {
     @Index(name = "idx_batch_id", columnList = "batchId"),
     @Index(name = "idx_email_status", columnList = "email, status"),
-    @Index(name = "idx_created_at", columnList = "createdAt")
+    @Index(name = "idx_created_at", columnList = "createdAt"),
+    @Index(name = "idx_status_updated_at", columnList = "status, updatedAt")
 })
 @Getter
 @Setter
@@ -29,6 +36,9 @@ public class SyncBatch {
 
     @Column(nullable = false)
     private String email;
+
+    @Column(length = 128)
+    private String idempotencyKey; // En-tête Idempotency-Key du client, unique par utilisateur
     
     @Column(nullable = false, length = 20)
     private String typePointage; // STANDARD ou TERRAIN
@@ -55,9 +65,17 @@ public class SyncBatch {
     @Column
     private LocalDateTime completedAt;
 
-    @Convert(converter = PointageBatchListConverter.class)
-    @Column(columnDefinition = "TEXT")
-    private List<PointageBatchDto> results;
+    @Column
+    private LocalDateTime updatedAt; // Dernière transition de statut
+
+    @Column
+    private Integer attempts; // Relances du batch par le reaper (StaleBatchReaper)
+
+    // Batch compté dans sync_stats; écrit uniquement par SyncStatsRepository
+    @Column(insertable = false, updatable = false, columnDefinition = "boolean not null default false")
+    private Boolean statsRecorded;
+
+    // Les résultats détaillés sont dans sync_batch_results / sync_batch_failures (BatchResultsStore)
 
     @PrePersist
     protected void onCreate() {
@@ -70,6 +88,15 @@ public class SyncBatch {
         if (failureCount == null) {
             failureCount = 0;
         }
+        if (attempts == null) {
+            attempts = 0;
+        }
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
     
     public Long getDurationSeconds() {
@@ -0,0 +1,53 @@
+package com.seneau.offline_sync_service.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pointage en échec d'un batch finalisé, une ligne par échec
+ * email et createdAt sont recopiés du batch pour lister les échecs d'un utilisateur sans jointure
+ */
+@Entity
+@Table(name = "sync_batch_failures", indexes = {
+    @Index(name = "idx_failure_batch_id", columnList = "batchId"),
+    @Index(name = "idx_failure_email_created", columnList = "email, createdAt, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncBatchFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sync_batch_failures_seq")
+    @SequenceGenerator(name = "sync_batch_failures_seq", sequenceName = "sync_batch_failures_seq", allocationSize = 50)
+    private Long id; // Séquence (et non IDENTITY) pour permettre les inserts JDBC par lots
+
+    @Column(nullable = false, length = 36)
+    private String batchId;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt; // Date de création du batch
+
+    @Column
+    private Long agent;
+
+    @Column
+    private LocalDate date;
+
+    @Column
+    private Boolean isTerrain;
+
+    @Column(length = 20)
+    private String statut;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+}
@@ -0,0 +1,39 @@
+package com.seneau.offline_sync_service.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Résultats détaillés d'un batch, hors de la ligne sync_batches
+ * Stockés en JSON compressé et chargés uniquement quand ils sont lus
+ */
+@Entity
+@Table(name = "sync_batch_results")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncBatchResults {
+
+    @Id
+    @Column(length = 36)
+    private String batchId;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] payload; // List<PointageBatchDto> en JSON gzip
+
+    @Column(nullable = false)
+    private Integer resultCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
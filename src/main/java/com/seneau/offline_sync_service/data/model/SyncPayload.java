@@ -0,0 +1,36 @@
+package com.seneau.offline_sync_service.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pointages d'un batch volumineux stockés hors du message RabbitMQ (claim-check)
+ * Supprimé quand le batch atteint un statut final
+ */
+@Entity
+@Table(name = "sync_payloads")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncPayload {
+
+    @Id
+    @Column(length = 36)
+    private String batchId;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] payload; // Format binaire SyncMessageConverter compressé
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        createdAt = LocalDateTime.now();
+    }
+}
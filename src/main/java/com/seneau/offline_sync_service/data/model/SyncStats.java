@@ -0,0 +1,72 @@
+package com.seneau.offline_sync_service.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats de synchronisation par utilisateur et type de pointage
+ * Alimentés à chaque batch finalisé (upsert natif), les moyennes sont calculées
+ * à la lecture à partir des sommes et des compteurs
+ */
+@Entity
+@Table(name = "sync_stats")
+@IdClass(SyncStats.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncStats {
+
+    @Id
+    private String email;
+
+    @Id
+    @Column(length = 20)
+    private String typePointage;
+
+    private long batchCount;
+
+    private long completedCount;
+
+    private long partialFailureCount;
+
+    private long failedCount;
+
+    private long pointagesTotal;
+
+    private long pointagesSynced; // Pointages des batchs COMPLETED
+
+    private long successSum;
+
+    private long failureSum;
+
+    private double failureRateSum; // Somme des taux d'échec (%) des batchs non vides
+
+    private long failureRateCount;
+
+    private double durationSecondsSum;
+
+    private long durationCount;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private String email;
+        private String typePointage;
+    }
+}
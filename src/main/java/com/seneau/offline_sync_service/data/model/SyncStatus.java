@@ -9,5 +9,12 @@ public enum SyncStatus {
     COMPLETED,        // Terminé avec succès
     PARTIAL_FAILURE,  // Partiellement réussi
     FAILED,           // Échec total
-    RETRY             // En cours de réessai
+    RETRY;            // En cours de réessai
+
+    /**
+     * Statut final: le batch ne sera plus retraité
+     */
+    public boolean isTerminal() {
+        return this == COMPLETED || this == PARTIAL_FAILURE || this == FAILED;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.seneau.offline_sync_service.data.repository;
+
+import com.seneau.offline_sync_service.data.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Verrouiller les prochains messages à publier
+     * SKIP LOCKED: plusieurs instances relaient en parallèle sans se bloquer ni publier deux fois
+     */
+    @Query(value = "SELECT * FROM sync_outbox WHERE available_at <= :now " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<OutboxMessage> lockNextBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Date de création du plus ancien message en attente
+     */
+    @Query("SELECT MIN(o.createdAt) FROM OutboxMessage o")
+    LocalDateTime findOldestCreatedAt();
+}
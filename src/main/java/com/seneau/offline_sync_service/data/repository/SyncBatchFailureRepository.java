@@ -0,0 +1,57 @@
+package com.seneau.offline_sync_service.data.repository;
+
+import com.seneau.offline_sync_service.data.model.SyncBatchFailure;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface SyncBatchFailureRepository extends JpaRepository<SyncBatchFailure, Long> {
+
+    /**
+     * Page d'échecs d'un utilisateur, du plus récent au plus ancien, strictement après le curseur (createdAt, id)
+     * Parcours de l'index (email, createdAt, id): le coût ne dépend pas de la profondeur de page
+     */
+    @Query("SELECT f FROM SyncBatchFailure f WHERE f.email = :email " +
+           "AND f.createdAt >= :from " +
+           "AND (f.createdAt < :afterCreatedAt OR (f.createdAt = :afterCreatedAt AND f.id < :afterId)) " +
+           "ORDER BY f.createdAt DESC, f.id DESC")
+    List<SyncBatchFailure> findPage(
+            @Param("email") String email,
+            @Param("from") LocalDateTime from,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    /**
+     * Tous les échecs d'un utilisateur, lus par curseur (à consommer dans une transaction)
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT f FROM SyncBatchFailure f WHERE f.email = :email ORDER BY f.createdAt DESC, f.id DESC")
+    Stream<SyncBatchFailure> streamByEmail(@Param("email") String email);
+
+    /**
+     * Supprimer les échecs d'un batch (avant réécriture)
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SyncBatchFailure f WHERE f.batchId = :batchId")
+    int deleteByBatchId(@Param("batchId") String batchId);
+}
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,24 @@ public interface SyncBatchRepository extends JpaRepository<SyncBatch, Long> {
      */
     Optional<SyncBatch> findByBatchId(String batchId);
 
+    /**
+     * Statuts de plusieurs batchs en une requête (projection, sans charger l'entité)
+     */
+    List<SyncStatusView> findByBatchIdIn(Collection<String> batchIds);
+
+    /**
+     * Trouver le batch d'un utilisateur par la clé d'idempotence qu'il a fournie
+     */
+    Optional<SyncBatch> findByEmailAndIdempotencyKey(String email, String idempotencyKey);
+
+    /**
+     * Sérialiser les soumissions d'un utilisateur avec la même clé d'idempotence jusqu'à la fin de la transaction
+     * Remplace la contrainte unique, impossible sur une table partitionnée par date
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtextextended(:email || chr(10) || :key, 0))",
+           nativeQuery = true)
+    int lockIdempotencyKey(@Param("email") String email, @Param("key") String idempotencyKey);
+
     /**
      * Trouver les batchs d'un utilisateur avec certains statuts
      */
@@ -73,6 +92,18 @@ public interface SyncBatchRepository extends JpaRepository<SyncBatch, Long> {
             @Param("beforeDate") LocalDateTime beforeDate
     );
 
+    /**
+     * Verrouiller une page de batchs bloqués (IN_PROGRESS / RETRY sans transition depuis cutoff)
+     * SKIP LOCKED: plusieurs instances du reaper se répartissent les batchs sans se bloquer.
+     * Le consumer ne verrouille pas la ligne: seul cutoff protège un batch en cours de traitement,
+     * stale-after doit donc dépasser la durée maximale d'un traitement
+     */
+    @Query(value = "SELECT * FROM sync_batches WHERE status IN ('IN_PROGRESS', 'RETRY') " +
+                   "AND (updated_at < :cutoff OR (updated_at IS NULL AND created_at < :cutoff)) " +
+                   "ORDER BY updated_at NULLS FIRST LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<SyncBatch> lockStaleBatches(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
     /**
      * Compter les batchs en attente
      */
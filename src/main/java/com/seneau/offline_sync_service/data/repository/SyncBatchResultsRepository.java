@@ -0,0 +1,9 @@
+package com.seneau.offline_sync_service.data.repository;
+
+import com.seneau.offline_sync_service.data.model.SyncBatchResults;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SyncBatchResultsRepository extends JpaRepository<SyncBatchResults, String> {
+}
@@ -0,0 +1,31 @@
+package com.seneau.offline_sync_service.data.repository;
+
+import com.seneau.offline_sync_service.data.model.SyncPayload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SyncPayloadRepository extends JpaRepository<SyncPayload, String> {
+
+    /**
+     * Supprimer le payload d'un batch (sans chargement préalable)
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SyncPayload p WHERE p.batchId = :batchId")
+    int deleteByBatchId(@Param("batchId") String batchId);
+
+    /**
+     * Supprimer les payloads expirés (batchs en échec non réessayés)
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SyncPayload p WHERE p.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,102 @@
+package com.seneau.offline_sync_service.data.repository;
+
+import com.seneau.offline_sync_service.data.model.SyncStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface SyncStatsRepository extends JpaRepository<SyncStats, SyncStats.Key> {
+
+    String TERMINAL_STATUSES = "('COMPLETED', 'PARTIAL_FAILURE', 'FAILED')";
+
+    String STATS_COLUMNS = "email, type_pointage, batch_count, completed_count, partial_failure_count, failed_count, " +
+            "pointages_total, pointages_synced, success_sum, failure_sum, failure_rate_sum, failure_rate_count, " +
+            "duration_seconds_sum, duration_count, updated_at";
+
+    // Agrégation d'un ensemble de lignes de sync_batches (un batch ou tout l'historique)
+    String STATS_SELECT = "SELECT email, type_pointage, COUNT(*), " +
+            "COUNT(*) FILTER (WHERE status = 'COMPLETED'), " +
+            "COUNT(*) FILTER (WHERE status = 'PARTIAL_FAILURE'), " +
+            "COUNT(*) FILTER (WHERE status = 'FAILED'), " +
+            "COALESCE(SUM(total_pointages), 0), " +
+            "COALESCE(SUM(total_pointages) FILTER (WHERE status = 'COMPLETED'), 0), " +
+            "COALESCE(SUM(success_count), 0), " +
+            "COALESCE(SUM(failure_count), 0), " +
+            "COALESCE(SUM(failure_count * 100.0 / total_pointages) FILTER (WHERE total_pointages > 0), 0), " +
+            "COUNT(*) FILTER (WHERE total_pointages > 0), " +
+            "COALESCE(SUM(EXTRACT(EPOCH FROM (completed_at - created_at))), 0), " +
+            "COUNT(completed_at), " +
+            "now() ";
+
+    /**
+     * Statistiques d'un utilisateur (une ligne par type de pointage)
+     */
+    List<SyncStats> findByEmail(String email);
+
+    /**
+     * Ajouter un batch finalisé aux agrégats de son utilisateur
+     * Le batch est marqué (stats_recorded) dans la même instruction: une transition rejouée
+     * (redelivery, DLQ) n'est jamais comptée deux fois
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "WITH recorded AS (" +
+                   "UPDATE sync_batches SET stats_recorded = true " +
+                   "WHERE batch_id = :batchId AND NOT stats_recorded AND status IN " + TERMINAL_STATUSES + " " +
+                   "RETURNING email, type_pointage, status, total_pointages, success_count, failure_count, " +
+                   "created_at, completed_at) " +
+                   "INSERT INTO sync_stats (" + STATS_COLUMNS + ") " +
+                   STATS_SELECT + "FROM recorded GROUP BY email, type_pointage " +
+                   "ON CONFLICT (email, type_pointage) DO UPDATE SET " +
+                   "batch_count = sync_stats.batch_count + EXCLUDED.batch_count, " +
+                   "completed_count = sync_stats.completed_count + EXCLUDED.completed_count, " +
+                   "partial_failure_count = sync_stats.partial_failure_count + EXCLUDED.partial_failure_count, " +
+                   "failed_count = sync_stats.failed_count + EXCLUDED.failed_count, " +
+                   "pointages_total = sync_stats.pointages_total + EXCLUDED.pointages_total, " +
+                   "pointages_synced = sync_stats.pointages_synced + EXCLUDED.pointages_synced, " +
+                   "success_sum = sync_stats.success_sum + EXCLUDED.success_sum, " +
+                   "failure_sum = sync_stats.failure_sum + EXCLUDED.failure_sum, " +
+                   "failure_rate_sum = sync_stats.failure_rate_sum + EXCLUDED.failure_rate_sum, " +
+                   "failure_rate_count = sync_stats.failure_rate_count + EXCLUDED.failure_rate_count, " +
+                   "duration_seconds_sum = sync_stats.duration_seconds_sum + EXCLUDED.duration_seconds_sum, " +
+                   "duration_count = sync_stats.duration_count + EXCLUDED.duration_count, " +
+                   "updated_at = EXCLUDED.updated_at",
+           nativeQuery = true)
+    int recordTerminal(@Param("batchId") String batchId);
+
+    // ========== RECONSTRUCTION ==========
+
+    /**
+     * Verrou de reconstruction, libéré en fin de transaction (une seule instance reconstruit)
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryRebuildLock(@Param("key") long key);
+
+    /**
+     * Marquer comme comptés tous les batchs finalisés (y compris l'historique antérieur aux agrégats)
+     */
+    @Modifying
+    @Query(value = "UPDATE sync_batches SET stats_recorded = true " +
+                   "WHERE NOT stats_recorded AND status IN " + TERMINAL_STATUSES,
+           nativeQuery = true)
+    int markAllTerminal();
+
+    @Modifying
+    @Query(value = "DELETE FROM sync_stats", nativeQuery = true)
+    int deleteAllStats();
+
+    /**
+     * Recalculer tous les agrégats depuis les batchs comptés
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sync_stats (" + STATS_COLUMNS + ") " +
+                   STATS_SELECT + "FROM sync_batches WHERE stats_recorded GROUP BY email, type_pointage",
+           nativeQuery = true)
+    int insertFromHistory();
+}
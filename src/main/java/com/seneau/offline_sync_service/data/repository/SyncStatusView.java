@@ -0,0 +1,27 @@
+package com.seneau.offline_sync_service.data.repository;
+
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection des seules colonnes de statut d'un batch (SELECT limité aux champs exposés)
+ */
+public interface SyncStatusView {
+
+    String getBatchId();
+
+    SyncStatus getStatus();
+
+    Integer getTotalPointages();
+
+    Integer getSuccessCount();
+
+    Integer getFailureCount();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getCompletedAt();
+
+    String getErrorMessage();
+}
@@ -0,0 +1,135 @@
+package com.seneau.offline_sync_service.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite adaptative des appels simultanés (AIMD)
+ * Chaque appel rapide et réussi alors que la limite est utilisée augmente la limite de 1;
+ * un échec ou un appel plus lent que le seuil de latence la multiplie par le ratio de recul.
+ * Un plafond temporaire (disjoncteur semi-ouvert) borne les appels sans modifier la limite apprise
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int ceiling = Integer.MAX_VALUE;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Réserver une place, en attendant au plus {@code timeoutMs} qu'un appel se termine
+     */
+    public boolean acquire(long timeoutMs) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (inFlight >= effectiveLimit()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libérer une place et ajuster la limite selon le résultat de l'appel
+     * @param dropped échec imputable au service appelé (5xx, timeout, connexion)
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        lock.lock();
+        try {
+            if (dropped || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlight * 2 >= limit) {
+                // Augmenter seulement si la limite actuelle est réellement sollicitée
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libérer une place sans ajuster la limite (appel non effectué)
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Plafonner les appels simultanés, les appels en attente restent bloqués dans acquire
+     */
+    public void cap(int ceiling) {
+        lock.lock();
+        try {
+            this.ceiling = Math.max(1, ceiling);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lever le plafond et réveiller les appels en attente
+     */
+    public void uncap() {
+        lock.lock();
+        try {
+            ceiling = Integer.MAX_VALUE;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int effectiveLimit() {
+        return Math.min((int) limit, ceiling);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return effectiveLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.seneau.offline_sync_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Limite de débit par agent (seau à jetons, un jeton par pointage)
+ * Un agent qui dépasse son débit voit ses batchs différés, les autres agents passent devant.
+ * Les seaux sont locaux à l'instance: le débit global d'un agent est au plus
+ * pointages-per-second × nombre d'instances
+ */
+@Component
+@Slf4j
+public class AgentRateLimiter {
+
+    private final boolean enabled;
+    private final double ratePerNano;
+    private final double burst;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+
+    public AgentRateLimiter(MeterRegistry meterRegistry,
+                            @Value("${sync.agent-rate-limit.enabled:false}") boolean enabled,
+                            @Value("${sync.agent-rate-limit.pointages-per-second:50}") double pointagesPerSecond,
+                            @Value("${sync.agent-rate-limit.burst:1000}") double burst) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ratePerNano = pointagesPerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(1))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Consommer les jetons d'un batch
+     * @return 0 si le batch peut être traité, sinon le délai d'attente estimé en ms
+     */
+    public long tryAcquire(String email, int pointages) {
+        if (!enabled || email == null) {
+            return 0;
+        }
+        // Un batch plus gros que la rafale passe dès que le seau est plein
+        double cost = Math.min(Math.max(pointages, 1), burst);
+        long waitMs = buckets.get(email, k -> new TokenBucket()).tryConsume(cost, System.nanoTime());
+        if (waitMs > 0) {
+            meterRegistry.counter("sync.agent.throttled").increment();
+        }
+        return waitMs;
+    }
+
+    private final class TokenBucket {
+
+        private double tokens = burst;
+        private long lastRefill = System.nanoTime();
+
+        synchronized long tryConsume(double cost, long now) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+            lastRefill = now;
+            if (tokens >= cost) {
+                tokens -= cost;
+                return 0;
+            }
+            return (long) Math.ceil((cost - tokens) / ratePerNano / 1_000_000d);
+        }
+    }
+}
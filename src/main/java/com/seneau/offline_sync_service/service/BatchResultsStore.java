@@ -0,0 +1,96 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.config.SyncMessageConverter;
+import com.seneau.offline_sync_service.data.model.PointageBatchListConverter;
+import com.seneau.offline_sync_service.data.model.SyncBatch;
+import com.seneau.offline_sync_service.data.model.SyncBatchFailure;
+import com.seneau.offline_sync_service.data.model.SyncBatchResults;
+import com.seneau.offline_sync_service.data.repository.SyncBatchFailureRepository;
+import com.seneau.offline_sync_service.data.repository.SyncBatchResultsRepository;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stockage des résultats de batch hors de la table sync_batches
+ * Les résultats complets sont gardés en JSON compressé (sync_batch_results), lus seulement
+ * pour fusionner les retries partiels; les échecs d'un batch finalisé sont en plus
+ * écrits ligne par ligne (sync_batch_failures) pour être listés sans décompression
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchResultsStore {
+
+    private static final String STATUT_ECHEC = "ECHEC";
+
+    private final SyncBatchResultsRepository resultsRepository;
+    private final SyncBatchFailureRepository failureRepository;
+    private final PointageBatchListConverter jsonConverter = new PointageBatchListConverter();
+
+    /**
+     * Charger les résultats déjà obtenus pour un batch (liste vide si aucun)
+     */
+    public List<PointageBatchDto> load(String batchId) {
+        return resultsRepository.findById(batchId)
+                .map(stored -> jsonConverter.convertToEntityAttribute(
+                        new String(SyncMessageConverter.gunzip(stored.getPayload()), StandardCharsets.UTF_8)))
+                .orElseGet(ArrayList::new);
+    }
+
+    /**
+     * Enregistrer les résultats d'un batch
+     * Si le batch est dans un statut final, ses échecs sont aussi écrits ligne par ligne
+     */
+    public void save(SyncBatch batch, List<PointageBatchDto> results) {
+        byte[] json = jsonConverter.convertToDatabaseColumn(results).getBytes(StandardCharsets.UTF_8);
+        resultsRepository.save(SyncBatchResults.builder()
+                .batchId(batch.getBatchId())
+                .payload(SyncMessageConverter.gzip(json))
+                .resultCount(results.size())
+                .build());
+
+        if (batch.getStatus().isTerminal()) {
+            saveFailures(batch, results);
+        }
+    }
+
+    private void saveFailures(SyncBatch batch, List<PointageBatchDto> results) {
+        failureRepository.deleteByBatchId(batch.getBatchId());
+        List<SyncBatchFailure> failures = results.stream()
+                .filter(result -> STATUT_ECHEC.equals(result.getStatut()))
+                .map(result -> SyncBatchFailure.builder()
+                        .batchId(batch.getBatchId())
+                        .email(batch.getEmail())
+                        .createdAt(batch.getCreatedAt())
+                        .agent(result.getAgent())
+                        .date(result.getDate())
+                        .isTerrain(result.getIsTerrain())
+                        .statut(result.getStatut())
+                        .message(result.getMessage())
+                        .build())
+                .toList();
+        failureRepository.saveAll(failures);
+        if (!failures.isEmpty()) {
+            log.debug("Batch {}: {} échecs enregistrés", batch.getBatchId(), failures.size());
+        }
+    }
+
+    /**
+     * Convertir une ligne d'échec en DTO de résultat
+     */
+    public static PointageBatchDto toDto(SyncBatchFailure failure) {
+        return PointageBatchDto.builder()
+                .agent(failure.getAgent())
+                .date(failure.getDate())
+                .isTerrain(failure.getIsTerrain())
+                .statut(failure.getStatut())
+                .message(failure.getMessage())
+                .build();
+    }
+}
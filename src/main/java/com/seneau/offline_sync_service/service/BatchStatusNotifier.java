@@ -0,0 +1,173 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.web.dto.SyncStatusDto;
+import com.seneau.offline_sync_service.web.dto.SyncStatusEventDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Notification des clients en attente de la fin d'un batch (SSE et long-poll)
+ * Les requêtes sont suspendues (traitement asynchrone servlet) sans occuper de thread;
+ * elles sont complétées par les changements de statut diffusés sur le fanout des statuts,
+ * quelle que soit l'instance qui a traité le batch
+ */
+@Service
+@Slf4j
+public class BatchStatusNotifier {
+
+    private final SyncService syncService;
+    private final Map<String, Set<Consumer<SyncStatusDto>>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    // Envoi aux clients hors du thread du listener RabbitMQ (un client lent ne bloque pas les autres)
+    private final ExecutorService dispatcher;
+
+    @Value("${sync.status-stream.max-waiters:10000}")
+    private int maxWaiters;
+
+    @Value("${sync.status-stream.timeout:PT60S}")
+    private Duration maxTimeout;
+
+    public BatchStatusNotifier(SyncService syncService,
+                               MeterRegistry meterRegistry,
+                               @Value("${sync.status-stream.dispatch-threads:4}") int dispatchThreads) {
+        this.syncService = syncService;
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, new CustomizableThreadFactory("status-stream-"));
+        Gauge.builder("sync.status.waiters", waiterCount, AtomicInteger::get)
+                .description("Clients en attente d'un changement de statut (SSE et long-poll)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Flux SSE des statuts d'un batch: statut courant, puis chaque transition jusqu'au statut final
+     */
+    public SseEmitter stream(String batchId) {
+        SyncStatusDto current = syncService.getSyncStatus(batchId);
+        SseEmitter emitter = new SseEmitter(maxTimeout.toMillis());
+        if (!send(emitter, current) || SyncStatusCache.isTerminal(current)) {
+            emitter.complete();
+            return emitter;
+        }
+
+        Consumer<SyncStatusDto> waiter = new Consumer<>() {
+            @Override
+            public void accept(SyncStatusDto status) {
+                if (!send(emitter, status) || SyncStatusCache.isTerminal(status)) {
+                    unsubscribe(batchId, this);
+                    emitter.complete();
+                }
+            }
+        };
+        subscribe(batchId, waiter);
+        emitter.onCompletion(() -> unsubscribe(batchId, waiter));
+        emitter.onTimeout(() -> unsubscribe(batchId, waiter));
+        emitter.onError(e -> unsubscribe(batchId, waiter));
+
+        // Transition survenue pendant l'inscription
+        SyncStatusDto latest = syncService.getSyncStatus(batchId);
+        if (SyncStatusCache.isTerminal(latest)) {
+            waiter.accept(latest);
+        }
+        return emitter;
+    }
+
+    /**
+     * Long-poll: répond dès que le batch atteint un statut final, sinon le statut courant au timeout
+     */
+    public DeferredResult<ResponseEntity<SyncStatusDto>> await(String batchId, Duration timeout) {
+        Duration effective = timeout == null || timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout;
+        SyncStatusDto current = syncService.getSyncStatus(batchId);
+        DeferredResult<ResponseEntity<SyncStatusDto>> result = new DeferredResult<>(effective.toMillis());
+        if (SyncStatusCache.isTerminal(current)) {
+            result.setResult(ResponseEntity.ok(current));
+            return result;
+        }
+
+        Consumer<SyncStatusDto> waiter = status -> {
+            if (SyncStatusCache.isTerminal(status)) {
+                result.setResult(ResponseEntity.ok(status));
+            }
+        };
+        subscribe(batchId, waiter);
+        result.onCompletion(() -> unsubscribe(batchId, waiter));
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(syncService.getSyncStatus(batchId))));
+
+        SyncStatusDto latest = syncService.getSyncStatus(batchId);
+        if (SyncStatusCache.isTerminal(latest)) {
+            result.setResult(ResponseEntity.ok(latest));
+        }
+        return result;
+    }
+
+    /**
+     * Changement de statut reçu du fanout (relayé par SyncStatusCache)
+     */
+    @EventListener
+    public void onStatusEvent(SyncStatusEventDto event) {
+        Set<Consumer<SyncStatusDto>> batchWaiters = waiters.get(event.getBatchId());
+        if (batchWaiters == null || batchWaiters.isEmpty()) {
+            return;
+        }
+        for (Consumer<SyncStatusDto> waiter : Set.copyOf(batchWaiters)) {
+            dispatcher.execute(() -> {
+                try {
+                    waiter.accept(event.getStatus());
+                } catch (Exception e) {
+                    log.debug("Notification du batch {} impossible: {}", event.getBatchId(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    private void subscribe(String batchId, Consumer<SyncStatusDto> waiter) {
+        if (waiterCount.incrementAndGet() > maxWaiters) {
+            waiterCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Trop de clients en attente, réessayer plus tard");
+        }
+        waiters.computeIfAbsent(batchId, k -> ConcurrentHashMap.newKeySet()).add(waiter);
+    }
+
+    private void unsubscribe(String batchId, Consumer<SyncStatusDto> waiter) {
+        waiters.computeIfPresent(batchId, (k, set) -> {
+            if (set.remove(waiter)) {
+                waiterCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static boolean send(SseEmitter emitter, SyncStatusDto status) {
+        try {
+            emitter.send(SseEmitter.event().name("status").id(status.getStatus()).data(status));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.seneau.offline_sync_service.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Lecture ligne par ligne à longueur bornée (\n ou \r\n)
+ * Au-delà de maxLength caractères, la fin de la ligne est lue et ignorée sans être
+ * gardée en mémoire: une ligne démesurée ne peut pas épuiser le tas.
+ * Non thread-safe
+ */
+final class BoundedLineReader {
+
+    private final Reader in;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean truncated;
+
+    BoundedLineReader(Reader in, int maxLength) {
+        this.in = in;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Ligne suivante sans son terminateur, null en fin de flux
+     * Tronquée à maxLength caractères si {@link #isTruncated()}
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        truncated = false;
+        boolean read = false;
+        while (true) {
+            if (position == limit) {
+                limit = Math.max(0, in.read(buffer, 0, buffer.length));
+                position = 0;
+                if (limit == 0) {
+                    return read ? finish() : null;
+                }
+            }
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            append(start, position);
+            if (position < limit) {
+                position++; // Terminateur consommé
+                return finish();
+            }
+        }
+    }
+
+    /**
+     * La dernière ligne lue dépassait maxLength caractères
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    private void append(int from, int to) {
+        int room = maxLength - line.length();
+        if (to - from > room) {
+            truncated = true;
+            line.append(buffer, from, Math.max(0, room));
+        } else {
+            line.append(buffer, from, to - from);
+        }
+    }
+
+    private String finish() {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,130 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.exception.PointageCallRejectedException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Découpe les gros batchs en chunks envoyés en parallèle au service de pointage
+ * Le parallélisme est borné par batch; les chunks en échec sont renvoyés à l'appelant
+ * pour être réessayés seuls, sans rejouer les chunks déjà traités
+ */
+@Component
+@Slf4j
+public class ChunkedDispatcher {
+
+    private final int chunkSize;
+    private final int maxParallelChunks;
+
+    // Pool dédié, volontairement hors contexte Spring pour ne pas remplacer l'executor par défaut
+    private final ExecutorService executor;
+
+    public ChunkedDispatcher(
+            @Value("${sync.dispatch.chunk-size:200}") int chunkSize,
+            @Value("${sync.dispatch.max-parallel-chunks:4}") int maxParallelChunks,
+            @Value("${sync.dispatch.pool-size:16}") int poolSize) {
+        this.chunkSize = chunkSize;
+        this.maxParallelChunks = maxParallelChunks;
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(poolSize * 4),
+                new CustomizableThreadFactory("pointage-dispatch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Envoyer les pointages par chunks et fusionner les résultats dans l'ordre d'envoi
+     */
+    public <T> ChunkedResult<T> dispatch(String batchId, List<T> items,
+                                         Function<List<T>, List<PointageBatchDto>> call) {
+        if (items.size() <= chunkSize) {
+            try {
+                return new ChunkedResult<>(call.apply(items), List.of(), null);
+            } catch (Exception e) {
+                return new ChunkedResult<>(List.of(), items, e);
+            }
+        }
+
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(new ArrayList<>(items.subList(from, Math.min(from + chunkSize, items.size()))));
+        }
+        log.info("✂️ Batch {} découpé en {} chunks de {} pointages max ({} en parallèle)",
+                 batchId, chunks.size(), chunkSize, maxParallelChunks);
+
+        Semaphore permits = new Semaphore(maxParallelChunks);
+        List<CompletableFuture<List<PointageBatchDto>>> futures = new ArrayList<>();
+        for (List<T> chunk : chunks) {
+            permits.acquireUninterruptibly();
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> call.apply(chunk), executor)
+                    .whenComplete((r, e) -> permits.release()));
+        }
+
+        List<PointageBatchDto> results = new ArrayList<>();
+        List<T> failedItems = new ArrayList<>();
+        Exception error = null;
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                results.addAll(futures.get(i).join());
+            } catch (CompletionException e) {
+                log.warn("⚠️ Chunk {}/{} du batch {} en échec: {}",
+                         i + 1, chunks.size(), batchId, e.getCause().getMessage());
+                failedItems.addAll(chunks.get(i));
+                error = retained(error, e.getCause() instanceof Exception cause ? cause : e);
+            }
+        }
+        return new ChunkedResult<>(results, failedItems, error);
+    }
+
+    /**
+     * Erreur remontée pour le batch: la première, sauf refus local (disjoncteur, limite) remplacé
+     * par le premier vrai échec, qui doit consommer une tentative
+     */
+    private static Exception retained(Exception current, Exception next) {
+        if (current == null) {
+            return next;
+        }
+        if (current instanceof PointageCallRejectedException && !(next instanceof PointageCallRejectedException)) {
+            return next;
+        }
+        return current;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Résultat d'un envoi par chunks
+     * failedItems contient les pointages des chunks en échec, error la première erreur du service
+ * de pointage (un refus local seulement si aucun chunk n'a réellement échoué)
+     */
+    public record ChunkedResult<T>(List<PointageBatchDto> results, List<T> failedItems, Exception error) {
+        public boolean hasFailures() {
+            return !failedItems.isEmpty();
+        }
+    }
+}
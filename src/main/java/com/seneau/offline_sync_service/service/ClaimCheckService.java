@@ -0,0 +1,140 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.config.SyncMessageConverter;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Claim-check des batchs volumineux
+ * Au-delà du seuil, les pointages sont écrits une fois dans le PayloadStore et le message
+ * RabbitMQ (publication initiale et retries) ne transporte que la référence.
+ * Le consumer recharge les pointages à la réception; le payload est supprimé
+ * quand le batch atteint un statut final.
+ * Sous le seuil, une copie de reprise est stockée sans modifier le message, pour que le reaper
+ * puisse relancer tout batch en cours dont le message est perdu.
+ * Les pointages d'un batch en échec définitif sont conservés failed-retention pour un réessai manuel
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClaimCheckService {
+
+    private final PayloadStore payloadStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sync.claim-check.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.claim-check.threshold:500}")
+    private int threshold;
+
+    @Value("${sync.claim-check.recovery-copy:true}")
+    private boolean recoveryCopy;
+
+    @Value("${sync.claim-check.failed-retention:P7D}")
+    private Duration failedRetention;
+
+    /**
+     * Retirer les pointages du message s'ils dépassent le seuil, sinon en stocker une copie de reprise
+     * Un payload déjà stocké pour ce batch est remplacé (cas d'un retry partiel)
+     */
+    public void offload(SyncMessageDto message) {
+        int count = countPointages(message);
+        boolean large = count >= threshold;
+        // Un message sans pointages (référence seule) ne doit pas écraser le payload stocké
+        if (!enabled || count == 0 || (!large && !recoveryCopy)) {
+            return;
+        }
+
+        // Seuls les pointages (et les privilèges, pour une relance sans le message) sont stockés
+        SyncMessageDto payload = SyncMessageDto.builder()
+                .typePointage(message.getTypePointage())
+                .privileges(message.getPrivileges())
+                .pointages(message.getPointages())
+                .pointagesTerrain(message.getPointagesTerrain())
+                .build();
+        byte[] encoded = SyncMessageConverter.encode(payload);
+        if (encoded == null) {
+            return;
+        }
+
+        byte[] compressed = SyncMessageConverter.gzip(encoded);
+        String ref = payloadStore.put(message.getBatchId(), compressed);
+        if (!large) {
+            // Le message garde ses pointages: la copie ne sert qu'à une relance par le reaper
+            meterRegistry.counter("sync.claim_check.recovery_copies").increment();
+            return;
+        }
+        message.setPayloadRef(ref);
+        message.setPointages(null);
+        message.setPointagesTerrain(null);
+
+        meterRegistry.counter("sync.claim_check.offloaded").increment();
+        meterRegistry.summary("sync.claim_check.payload.bytes").record(compressed.length);
+        log.info("📦 Batch {}: pointages déplacés vers le stockage claim-check ({} octets)",
+                 message.getBatchId(), compressed.length);
+    }
+
+    /**
+     * Recharger les pointages d'un message claim-check
+     * Renvoie false si le payload n'existe plus (batch déjà finalisé)
+     */
+    public boolean resolve(SyncMessageDto message) {
+        if (message.getPayloadRef() == null || countPointages(message) > 0) {
+            return true;
+        }
+
+        Optional<byte[]> stored = payloadStore.get(message.getPayloadRef());
+        if (stored.isEmpty()) {
+            log.error("❌ Payload {} introuvable pour le batch {}", message.getPayloadRef(), message.getBatchId());
+            return false;
+        }
+
+        SyncMessageDto payload = SyncMessageConverter.decode(SyncMessageConverter.gunzip(stored.get()));
+        message.setPointages(payload.getPointages());
+        message.setPointagesTerrain(payload.getPointagesTerrain());
+        return true;
+    }
+
+    /**
+     * Relire le payload stocké d'un batch (relance d'un batch dont le message est perdu)
+     */
+    public Optional<SyncMessageDto> load(String batchId) {
+        return payloadStore.get(batchId)
+                .map(stored -> SyncMessageConverter.decode(SyncMessageConverter.gunzip(stored)));
+    }
+
+    /**
+     * Supprimer le payload d'un batch finalisé
+     */
+    public void release(String batchId) {
+        payloadStore.delete(batchId);
+    }
+
+    /**
+     * Supprimer les payloads des batchs en échec non réessayés dans le délai de rétention
+     * (les batchs en cours plus anciens que stale-after ont déjà été repris par le reaper)
+     */
+    @Scheduled(cron = "${sync.claim-check.purge-cron:0 45 3 * * *}")
+    public void purgeExpired() {
+        int deleted = payloadStore.purgeOlderThan(LocalDateTime.now().minus(failedRetention));
+        log.info("🧹 {} payloads claim-check expirés supprimés", deleted);
+    }
+
+    private static int countPointages(SyncMessageDto message) {
+        if (message.getTypePointage() == TypePointageSync.TERRAIN) {
+            return message.getPointagesTerrain() != null ? message.getPointagesTerrain().size() : 0;
+        }
+        return message.getPointages() != null ? message.getPointages().size() : 0;
+    }
+}
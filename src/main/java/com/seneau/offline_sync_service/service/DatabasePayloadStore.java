@@ -0,0 +1,46 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncPayload;
+import com.seneau.offline_sync_service.data.repository.SyncPayloadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Stockage des payloads en base (table sync_payloads), partagé entre instances
+ * Écrit dans la transaction de l'appelant: le payload existe si et seulement si le batch existe
+ */
+@Service
+@ConditionalOnProperty(name = "sync.claim-check.store", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabasePayloadStore implements PayloadStore {
+
+    private final SyncPayloadRepository syncPayloadRepository;
+
+    @Override
+    public String put(String batchId, byte[] payload) {
+        syncPayloadRepository.save(SyncPayload.builder()
+                .batchId(batchId)
+                .payload(payload)
+                .build());
+        return batchId;
+    }
+
+    @Override
+    public Optional<byte[]> get(String ref) {
+        return syncPayloadRepository.findById(ref).map(SyncPayload::getPayload);
+    }
+
+    @Override
+    public void delete(String ref) {
+        syncPayloadRepository.deleteByBatchId(ref);
+    }
+
+    @Override
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        return syncPayloadRepository.deleteByCreatedAtBefore(cutoff);
+    }
+}
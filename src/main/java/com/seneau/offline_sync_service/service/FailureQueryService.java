@@ -0,0 +1,130 @@
+package com.seneau.offline_sync_service.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.data.model.SyncBatchFailure;
+import com.seneau.offline_sync_service.data.repository.SyncBatchFailureRepository;
+import com.seneau.offline_sync_service.web.dto.FailurePageDto;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.exception.ValidationException;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Lecture des échecs de synchronisation d'un utilisateur (table sync_batch_failures)
+ * Pagination par clé (createdAt, id) avec un curseur opaque, ou export complet lu par curseur
+ * base: la mémoire consommée ne dépend pas du volume de l'historique
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FailureQueryService {
+
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final SyncBatchFailureRepository failureRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sync.failures.page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${sync.failures.max-page-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * Page d'échecs, du plus récent au plus ancien
+     * @param cursor curseur renvoyé par la page précédente (null pour la première page)
+     * @param from   borne inclusive sur la date de création du batch (optionnelle)
+     * @param to     borne exclusive sur la date de création du batch (optionnelle)
+     */
+    @Transactional(readOnly = true)
+    public FailurePageDto getPage(String email, String cursor, LocalDateTime from, LocalDateTime to, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+
+        // Sans curseur, la page démarre juste avant la borne haute
+        LocalDateTime afterCreatedAt = to != null ? to : MAX_DATE;
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor decoded = Cursor.decode(cursor);
+            afterCreatedAt = decoded.createdAt();
+            afterId = decoded.id();
+        }
+
+        // Une ligne de plus pour savoir s'il reste une page
+        List<SyncBatchFailure> rows = failureRepository.findPage(email, from != null ? from : MIN_DATE,
+                afterCreatedAt, afterId, PageRequest.ofSize(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<SyncBatchFailure> page = hasMore ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            SyncBatchFailure last = page.get(page.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return FailurePageDto.builder()
+                .failures(page.stream().map(BatchResultsStore::toDto).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Écrire tous les échecs d'un utilisateur en tableau JSON, ligne par ligne depuis le curseur base
+     */
+    @Transactional(readOnly = true)
+    public void writeAll(String email, OutputStream out) throws IOException {
+        int count = 0;
+        try (JsonGenerator generator = objectMapper.createGenerator(out);
+             Stream<SyncBatchFailure> failures = failureRepository.streamByEmail(email)) {
+            generator.writeStartArray();
+            Iterator<SyncBatchFailure> iterator = failures.iterator();
+            while (iterator.hasNext()) {
+                SyncBatchFailure failure = iterator.next();
+                PointageBatchDto dto = BatchResultsStore.toDto(failure);
+                // Ne pas accumuler les entités lues dans le contexte de persistance
+                entityManager.detach(failure);
+                generator.writeObject(dto);
+                count++;
+            }
+            generator.writeEndArray();
+        }
+        log.debug("{} échecs exportés pour {}", count, email);
+    }
+
+    /**
+     * Position dans la liste: createdAt et id de la dernière ligne renvoyée
+     */
+    record Cursor(LocalDateTime createdAt, long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                                  Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new ValidationException("Curseur invalide", List.of("cursor: " + token));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.seneau.offline_sync_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stockage des payloads sur disque local, pour un déploiement mono-instance
+ * Un fichier par batch, écrit dans un fichier temporaire puis renommé atomiquement
+ */
+@Service
+@ConditionalOnProperty(name = "sync.claim-check.store", havingValue = "file")
+@Slf4j
+public class FilePayloadStore implements PayloadStore {
+
+    private final Path directory;
+
+    public FilePayloadStore(@Value("${sync.claim-check.file.directory:${java.io.tmpdir}/offline-sync-payloads}") String directory)
+            throws IOException {
+        this.directory = Files.createDirectories(Path.of(directory));
+        log.info("📁 Stockage claim-check dans {}", this.directory);
+    }
+
+    @Override
+    public String put(String batchId, byte[] payload) {
+        Path target = resolve(batchId);
+        try {
+            Path temp = Files.createTempFile(directory, batchId, ".tmp");
+            Files.write(temp, payload);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'écrire le payload du batch " + batchId, e);
+        }
+        return batchId;
+    }
+
+    @Override
+    public Optional<byte[]> get(String ref) {
+        Path file = resolve(ref);
+        try {
+            return Files.exists(file) ? Optional.of(Files.readAllBytes(file)) : Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de lire le payload " + ref, e);
+        }
+    }
+
+    @Override
+    public void delete(String ref) {
+        Path file = resolve(ref);
+        // Le disque n'est pas transactionnel: suppression seulement une fois le statut final validé
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteFile(file);
+                }
+            });
+        } else {
+            deleteFile(file);
+        }
+    }
+
+    @Override
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        FileTime limit = FileTime.from(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".bin")).toList()) {
+                if (Files.getLastModifiedTime(file).compareTo(limit) < 0) {
+                    deleteFile(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Impossible de purger les payloads de {}: {}", directory, e.getMessage());
+        }
+        return deleted;
+    }
+
+    private void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible de supprimer le payload {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path resolve(String ref) {
+        // Les références sont des UUID: tout autre caractère est refusé (pas de sortie du répertoire)
+        if (!ref.matches("[A-Za-z0-9-]+")) {
+            throw new IllegalArgumentException("Référence de payload invalide: " + ref);
+        }
+        return directory.resolve(ref + ".bin");
+    }
+}
@@ -0,0 +1,150 @@
+package com.seneau.offline_sync_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seneau.offline_sync_service.data.model.SyncBatch;
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.data.repository.SyncBatchRepository;
+import com.seneau.offline_sync_service.web.dto.SyncResponseDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Déduplication des soumissions via l'en-tête Idempotency-Key
+ * Un cache local borné (LRU + TTL) évite la requête en base pour les renvois rapprochés;
+ * le couple (email, idempotency_key) de sync_batches reste la référence entre instances; les
+ * soumissions concurrentes d'un même utilisateur avec la même clé sont sérialisées par un
+ * verrou consultatif (advisory lock). Deux utilisateurs peuvent réutiliser la même clé
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final SyncBatchRepository syncBatchRepository;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, SyncResponseDto> responses;
+
+    public IdempotencyService(SyncBatchRepository syncBatchRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${sync.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${sync.idempotency.cache-ttl:PT24H}") Duration cacheTtl) {
+        this.syncBatchRepository = syncBatchRepository;
+        this.meterRegistry = meterRegistry;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "sync.idempotency");
+    }
+
+    /**
+     * Ramener la clé à la taille de la colonne (empreinte SHA-256 si trop longue)
+     */
+    public String normalize(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Retrouver la réponse d'une soumission déjà traitée avec cette clé
+     */
+    public Optional<SyncResponseDto> findPrevious(String email, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+
+        SyncResponseDto cached = responses.getIfPresent(cacheKey(email, idempotencyKey));
+        if (cached != null) {
+            countLookup("cache_hit");
+            log.info("♻️ Soumission déjà reçue (cache) pour la clé {}: batch {}", idempotencyKey, cached.getBatchId());
+            return Optional.of(cached);
+        }
+
+        // Une soumission concurrente du même utilisateur avec la même clé attend la validation de la première
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            syncBatchRepository.lockIdempotencyKey(email, idempotencyKey);
+        }
+        Optional<SyncResponseDto> previous = syncBatchRepository.findByEmailAndIdempotencyKey(email, idempotencyKey)
+                .map(IdempotencyService::originalResponse);
+        if (previous.isPresent()) {
+            countLookup("db_hit");
+            responses.put(cacheKey(email, idempotencyKey), previous.get());
+            log.info("♻️ Soumission déjà reçue (base) pour la clé {}: batch {}",
+                     idempotencyKey, previous.get().getBatchId());
+        } else {
+            countLookup("miss");
+        }
+        return previous;
+    }
+
+    /**
+     * Mémoriser la réponse une fois la transaction validée
+     */
+    public void remember(String email, String idempotencyKey, SyncResponseDto response) {
+        if (idempotencyKey == null || !Boolean.TRUE.equals(response.getSentToQueue())) {
+            return;
+        }
+        String key = cacheKey(email, idempotencyKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    responses.put(key, response);
+                }
+            });
+        } else {
+            responses.put(key, response);
+        }
+    }
+
+    /**
+     * Réponse renvoyée lors de la soumission initiale du batch
+     */
+    public static SyncResponseDto originalResponse(SyncBatch batch) {
+        return SyncResponseDto.builder()
+                .batchId(batch.getBatchId())
+                .status(SyncStatus.PENDING.name())
+                .totalPointages(batch.getTotalPointages())
+                .successCount(0)
+                .failureCount(0)
+                .message("Batch " + batch.getTypePointage() + " envoyé à la queue de traitement")
+                .sentToQueue(true)
+                .build();
+    }
+
+    private void countLookup(String result) {
+        meterRegistry.counter("sync.idempotency.lookups", "result", result).increment();
+    }
+
+    private static String cacheKey(String email, String idempotencyKey) {
+        return email + '\n' + idempotencyKey;
+    }
+}
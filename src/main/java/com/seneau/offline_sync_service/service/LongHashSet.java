@@ -0,0 +1,114 @@
+package com.seneau.offline_sync_service.service;
+
+/**
+ * Ensemble de long en adressage ouvert (sondage linéaire), sans boxing
+ * Environ 16 octets par entrée au lieu de ~60 pour un HashSet<Long>.
+ * La valeur 0 (case vide) est stockée sous une valeur de substitution,
+ * collision négligeable pour des empreintes 64 bits.
+ * Non thread-safe: l'appelant synchronise les accès
+ */
+final class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final long ZERO_SUBSTITUTE = 0x9E3779B97F4A7C15L;
+
+    private long[] table;
+    private int mask;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(long value) {
+        long key = key(value);
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == EMPTY) {
+                return false;
+            }
+            if (current == key) {
+                return true;
+            }
+        }
+    }
+
+    boolean add(long value) {
+        long key = key(value);
+        int i = slot(key);
+        while (table[i] != EMPTY) {
+            if (table[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        if (++size * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * Suppression par décalage arrière: pas de marqueur de suppression à gérer
+     */
+    boolean remove(long value) {
+        long key = key(value);
+        int i = slot(key);
+        while (table[i] != key) {
+            if (table[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long current = table[j];
+            if (current == EMPTY) {
+                break;
+            }
+            int ideal = slot(current);
+            boolean staysInPlace = i <= j
+                    ? (i < ideal && ideal <= j)
+                    : (i < ideal || ideal <= j);
+            if (!staysInPlace) {
+                table[i] = current;
+                i = j;
+            }
+        }
+        table[i] = EMPTY;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length << 1];
+        mask = table.length - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = slot(key);
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = key;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static long key(long value) {
+        return value == EMPTY ? ZERO_SUBSTITUTE : value;
+    }
+}
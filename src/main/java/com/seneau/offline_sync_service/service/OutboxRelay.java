@@ -0,0 +1,200 @@
+package com.seneau.offline_sync_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.data.model.OutboxMessage;
+import com.seneau.offline_sync_service.data.repository.OutboxMessageRepository;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relais de l'outbox vers RabbitMQ
+ * Publie les messages par lots via les publications asynchrones du producer; une ligne n'est supprimée
+ * qu'après l'ack du broker. En cas de nack ou de timeout, la ligne est reprogrammée
+ * avec un délai croissant. Le relais tourne sur son propre thread: les tâches @Scheduled
+ * longues (reconstruction des stats, partitions, purges) ne retardent pas les publications
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final RabbitMQProducer rabbitMQProducer;
+    private final PriorityPolicy priorityPolicy;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final SyncMetrics syncMetrics;
+
+    private final Timer relayLag;
+    private final Counter published;
+    private final Counter failures;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-relay-"));
+
+    @Value("${sync.outbox.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${sync.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${sync.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${sync.outbox.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       RabbitMQProducer rabbitMQProducer,
+                       PriorityPolicy priorityPolicy,
+                       ObjectMapper objectMapper,
+                       TransactionTemplate transactionTemplate,
+                       SyncMetrics syncMetrics,
+                       MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.rabbitMQProducer = rabbitMQProducer;
+        this.priorityPolicy = priorityPolicy;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.syncMetrics = syncMetrics;
+        this.relayLag = Timer.builder("sync.outbox.relay.lag")
+                .description("Délai entre l'écriture dans l'outbox et la confirmation du broker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.published = meterRegistry.counter("sync.outbox.published");
+        this.failures = meterRegistry.counter("sync.outbox.failures");
+        Gauge.builder("sync.outbox.pending", pending, AtomicLong::get)
+                .description("Messages en attente de publication dans l'outbox")
+                .register(meterRegistry);
+        Gauge.builder("sync.outbox.oldest.age.seconds", oldestAgeSeconds, AtomicLong::get)
+                .description("Âge du plus ancien message en attente dans l'outbox")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::relaySafely, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Publier les messages en attente; enchaîne les lots tant que l'outbox en contient
+     */
+    public void relay() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed >= batchSize);
+    }
+
+    /**
+     * Une exception non rattrapée arrêterait les exécutions suivantes du relais
+     */
+    private void relaySafely() {
+        try {
+            relay();
+        } catch (Exception e) {
+            log.error("❌ Erreur du relais de l'outbox, nouvelle tentative dans {}ms", pollIntervalMs, e);
+        }
+    }
+
+    /**
+     * Relever la taille et l'âge de l'outbox
+     */
+    @Scheduled(fixedDelayString = "${sync.outbox.metrics-refresh-ms:10000}")
+    public void refreshMetrics() {
+        try {
+            pending.set(outboxMessageRepository.count());
+            LocalDateTime oldest = outboxMessageRepository.findOldestCreatedAt();
+            oldestAgeSeconds.set(oldest != null ? Duration.between(oldest, LocalDateTime.now()).getSeconds() : 0);
+        } catch (Exception e) {
+            log.debug("Impossible de relever la taille de l'outbox: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = outboxMessageRepository.lockNextBatch(LocalDateTime.now(), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Publier tout le lot sans attendre: les confirms arrivent en pipeline
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(batch.size());
+        for (OutboxMessage row : batch) {
+            try {
+                SyncMessageDto message = objectMapper.readValue(row.getPayload(), SyncMessageDto.class);
+                int priority = row.getPriority() != null ? row.getPriority() : priorityPolicy.score(message);
+                Timer.Sample publish = syncMetrics.start();
+                CompletableFuture<Void> confirm =
+                        rabbitMQProducer.sendAsync(row.getExchange(), row.getRoutingKey(), message, priority);
+                // Étape "publish": envoi → confirm du broker, mesuré à l'arrivée du confirm
+                confirm.whenComplete((ack, error) -> syncMetrics.record(publish, "publish", message.getTypePointage(),
+                        error == null ? SyncMetrics.OUTCOME_SUCCESS : SyncMetrics.OUTCOME_ERROR));
+                confirms.add(confirm);
+            } catch (Exception e) {
+                confirms.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        // 2. Attendre les confirms, supprimer les lignes acquittées
+        List<Long> acked = new ArrayList<>(batch.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage row = batch.get(i);
+            try {
+                confirms.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acked.add(row.getId());
+                relayLag.record(Duration.between(row.getCreatedAt(), LocalDateTime.now()));
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                reschedule(row, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+            }
+        }
+
+        outboxMessageRepository.deleteAllByIdInBatch(acked);
+        published.increment(acked.size());
+        if (acked.size() < batch.size()) {
+            log.warn("⚠️ Outbox: {}/{} messages non confirmés, reprogrammés", batch.size() - acked.size(), batch.size());
+        }
+        return batch.size();
+    }
+
+    private void reschedule(OutboxMessage row, String error) {
+        int attempts = row.getAttempts() + 1;
+        long backoffMs = Math.min(maxBackoffMs, 1000L << Math.min(attempts - 1, 16));
+        row.setAttempts(attempts);
+        row.setLastError(error);
+        row.setAvailableAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMs)));
+        failures.increment();
+        log.warn("🔄 Outbox: batch {} non publié (tentative {}), nouvel essai dans {}ms: {}",
+                 row.getBatchId(), attempts, backoffMs, error);
+    }
+}
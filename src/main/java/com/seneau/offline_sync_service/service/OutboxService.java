@@ -0,0 +1,53 @@
+package com.seneau.offline_sync_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.config.PointageShards;
+import com.seneau.offline_sync_service.config.RabbitConfig;
+import com.seneau.offline_sync_service.data.model.OutboxMessage;
+import com.seneau.offline_sync_service.data.repository.OutboxMessageRepository;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Écriture des messages de synchronisation dans l'outbox
+ * Le message est inséré dans la transaction de l'appelant: il n'est publié
+ * que si le batch est bien validé en base, et l'appel HTTP n'attend pas le broker
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+    private final ClaimCheckService claimCheckService;
+    private final PointageShards pointageShards;
+    private final PriorityPolicy priorityPolicy;
+
+    /**
+     * Ajouter un message à publier dans la queue du shard de l'agent
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(SyncMessageDto message) {
+        int priority = priorityPolicy.score(message);
+        // Les gros batchs ne transitent que par référence (outbox et broker)
+        claimCheckService.offload(message);
+        try {
+            outboxMessageRepository.save(OutboxMessage.builder()
+                    .batchId(message.getBatchId())
+                    .exchange(RabbitConfig.POINTAGE_EXCHANGE)
+                    .routingKey(pointageShards.routingKey(message.getEmail()))
+                    .payload(objectMapper.writeValueAsString(message))
+                    .priority(priority)
+                    .build());
+            log.debug("📮 Batch {} ajouté à l'outbox", message.getBatchId());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de sérialiser le batch " + message.getBatchId(), e);
+        }
+    }
+}
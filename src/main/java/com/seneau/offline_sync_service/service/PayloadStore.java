@@ -0,0 +1,28 @@
+package com.seneau.offline_sync_service.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Stockage des payloads de batchs volumineux (claim-check)
+ * Le message RabbitMQ ne transporte que la référence renvoyée par put
+ */
+public interface PayloadStore {
+
+    /**
+     * Enregistrer (ou remplacer) le payload d'un batch et renvoyer sa référence
+     */
+    String put(String batchId, byte[] payload);
+
+    Optional<byte[]> get(String ref);
+
+    /**
+     * Supprimer un payload; effectif à la validation de la transaction en cours
+     */
+    void delete(String ref);
+
+    /**
+     * Supprimer les payloads écrits avant cutoff et renvoyer leur nombre
+     */
+    int purgeOlderThan(LocalDateTime cutoff);
+}
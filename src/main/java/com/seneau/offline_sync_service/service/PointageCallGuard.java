@@ -0,0 +1,270 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.config.RabbitConfig;
+import com.seneau.offline_sync_service.web.exception.PointageCallRejectedException;
+import com.seneau.offline_sync_service.web.exception.PointageServiceException;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Protection des appels au service de pointage
+ * Une limite adaptative (AIMD) borne les appels simultanés selon la latence et les erreurs observées;
+ * un disjoncteur suspend les listeners de la queue principale tant que le service est en échec,
+ * puis les relance avec un seul consumer pour les appels de test (HALF_OPEN), la limite étant
+ * plafonnée au nombre d'appels de test quel que soit le nombre de messages reçus.
+ * Les appels refusés localement lèvent PointageCallRejectedException: le batch est différé
+ * sans consommer de tentative
+ */
+@Component
+@Slf4j
+public class PointageCallGuard {
+
+    private static final List<String> GUARDED_LISTENERS =
+            List.of(RabbitConfig.POINTAGE_LISTENER_ID, RabbitConfig.POINTAGE_BATCH_LISTENER_ID);
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Duration openDuration;
+    private final long acquireTimeoutMs;
+    private final int halfOpenProbes;
+    private final int batchSize;
+
+    // Transitions du disjoncteur hors des threads d'appel: arrêter un listener depuis son propre thread bloquerait
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("pointage-circuit-"));
+    private final Set<String> pausedListeners = ConcurrentHashMap.newKeySet();
+    private final Set<String> throttledListeners = ConcurrentHashMap.newKeySet();
+
+    public PointageCallGuard(RabbitListenerEndpointRegistry listenerRegistry,
+                             MeterRegistry meterRegistry,
+                             @Value("${sync.limiter.initial-limit:10}") int initialLimit,
+                             @Value("${sync.limiter.min-limit:1}") int minLimit,
+                             @Value("${sync.limiter.max-limit:50}") int maxLimit,
+                             @Value("${sync.limiter.backoff-ratio:0.9}") double backoffRatio,
+                             @Value("${sync.limiter.latency-threshold:PT5S}") Duration latencyThreshold,
+                             @Value("${sync.limiter.acquire-timeout-ms:30000}") long acquireTimeoutMs,
+                             @Value("${sync.circuit-breaker.window-size:20}") int windowSize,
+                             @Value("${sync.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                             @Value("${sync.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                             @Value("${sync.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+                             @Value("${sync.circuit-breaker.half-open-probes:3}") int halfOpenProbes,
+                             @Value("${sync.consumer.batch.size:50}") int batchSize) {
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.openDuration = openDuration;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.halfOpenProbes = halfOpenProbes;
+        this.batchSize = batchSize;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                backoffRatio, latencyThreshold.toNanos());
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                openDuration, halfOpenProbes, System::nanoTime, this::onTransition);
+
+        Gauge.builder("sync.pointage.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Appels simultanés autorisés vers le service de pointage")
+                .register(meterRegistry);
+        Gauge.builder("sync.pointage.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Appels en cours vers le service de pointage")
+                .register(meterRegistry);
+        Gauge.builder("sync.pointage.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("État du disjoncteur: 0 fermé, 1 ouvert, 2 semi-ouvert")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Exécuter un appel au service de pointage sous la limite et le disjoncteur
+     */
+    public <R> R call(Supplier<R> call) {
+        try {
+            if (!limiter.acquire(acquireTimeoutMs)) {
+                meterRegistry.counter("sync.pointage.rejected", "reason", "limit").increment();
+                throw new PointageCallRejectedException("Trop d'appels en cours vers le service de pointage", 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PointageServiceException("Appel au service de pointage interrompu", e);
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            limiter.cancel();
+            meterRegistry.counter("sync.pointage.rejected", "reason", "circuit_open").increment();
+            throw new PointageCallRejectedException("Service de pointage indisponible (disjoncteur ouvert)",
+                    circuitBreaker.remainingOpenMillis());
+        }
+
+        long start = System.nanoTime();
+        try {
+            R result = call.get();
+            long latency = System.nanoTime() - start;
+            limiter.release(latency, false);
+            circuitBreaker.onSuccess();
+            record(latency, "success");
+            return result;
+        } catch (RuntimeException e) {
+            long latency = System.nanoTime() - start;
+            boolean downstream = isDownstreamFailure(e);
+            limiter.release(latency, downstream);
+            if (downstream) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess(); // Erreur du client (400...): le service répond normalement
+            }
+            record(latency, downstream ? "failure" : "client_error");
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Erreur imputable au service de pointage (5xx, 404, 429, timeout, connexion refusée)
+     */
+    static boolean isDownstreamFailure(Throwable e) {
+        if (e instanceof RetryableException) {
+            return true;
+        }
+        int status;
+        if (e instanceof FeignException feign) {
+            status = feign.status();
+        } else if (e instanceof PointageServiceException pointage) {
+            status = pointage.getStatus();
+        } else {
+            return true;
+        }
+        return status < 0 || status >= 500 || status == 404 || status == 429;
+    }
+
+    private void record(long latencyNanos, String outcome) {
+        Timer.builder("sync.pointage.calls")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onTransition(CircuitBreaker.State state) {
+        meterRegistry.counter("sync.pointage.circuit.transitions", "state", state.name()).increment();
+        switch (state) {
+            case OPEN -> {
+                limiter.uncap();
+                log.error("🔌 Disjoncteur ouvert: service de pointage en échec, listeners suspendus pour {}s",
+                          openDuration.toSeconds());
+                scheduler.execute(this::pauseListeners);
+                scheduler.schedule(circuitBreaker::halfOpen, openDuration.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            case HALF_OPEN -> {
+                // Plafond posé avant tout appel de test: le throttling des listeners est asynchrone
+                limiter.cap(halfOpenProbes);
+                log.warn("🔌 Disjoncteur semi-ouvert: reprise des listeners pour {} appels de test", halfOpenProbes);
+                scheduler.execute(() -> {
+                    throttleListeners();
+                    resumeListeners();
+                });
+            }
+            case CLOSED -> {
+                limiter.uncap();
+                log.info("🔌 Disjoncteur fermé: service de pointage rétabli");
+                scheduler.execute(() -> {
+                    resumeListeners();
+                    restoreListeners();
+                });
+            }
+        }
+    }
+
+    private void pauseListeners() {
+        for (String id : GUARDED_LISTENERS) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(id);
+            if (container != null && container.isRunning()) {
+                container.stop();
+                pausedListeners.add(id);
+            }
+        }
+    }
+
+    /**
+     * Réduire les listeners suspendus à un consumer et half-open-probes messages par channel,
+     * pour que l'essentiel des messages reste dans les queues pendant les appels de test
+     */
+    private void throttleListeners() {
+        for (String id : pausedListeners) {
+            if (listenerRegistry.getListenerContainer(id) instanceof SimpleMessageListenerContainer container) {
+                container.setConcurrentConsumers(1);
+                container.setMaxConcurrentConsumers(1);
+                container.setPrefetchCount(halfOpenProbes);
+                if (isBatchListener(id)) {
+                    container.setBatchSize(halfOpenProbes);
+                }
+                throttledListeners.add(id);
+            }
+        }
+    }
+
+    /**
+     * Rendre leur capacité nominale aux listeners (redémarrage nécessaire pour le prefetch)
+     */
+    private void restoreListeners() {
+        for (String id : throttledListeners) {
+            if (listenerRegistry.getListenerContainer(id) instanceof SimpleMessageListenerContainer container) {
+                boolean running = container.isRunning();
+                if (running) {
+                    container.stop();
+                }
+                container.setMaxConcurrentConsumers(RabbitConfig.LISTENER_MAX_CONCURRENT_CONSUMERS);
+                container.setConcurrentConsumers(RabbitConfig.LISTENER_CONCURRENT_CONSUMERS);
+                if (isBatchListener(id)) {
+                    container.setBatchSize(batchSize);
+                    container.setPrefetchCount(batchSize);
+                } else {
+                    container.setPrefetchCount(RabbitConfig.LISTENER_PREFETCH);
+                }
+                if (running) {
+                    container.start();
+                }
+            }
+            throttledListeners.remove(id);
+        }
+    }
+
+    private static boolean isBatchListener(String id) {
+        return RabbitConfig.POINTAGE_BATCH_LISTENER_ID.equals(id);
+    }
+
+    private void resumeListeners() {
+        for (String id : pausedListeners) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(id);
+            if (container != null && !container.isRunning()) {
+                container.start();
+            }
+            pausedListeners.remove(id);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.config.RabbitConfig;
+import com.seneau.offline_sync_service.web.dto.DedupReleaseDto;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Index de déduplication des pointages entre batchs
+ * Une empreinte 64 bits par pointage: (matricule, heure) pour STANDARD,
+ * (email, heure, latitude, longitude) pour TERRAIN.
+ * L'index en mémoire écarte les renvois connus sans accès base; la table
+ * pointage_fingerprints (clé primaire sur l'empreinte) reste la référence
+ * entre instances et après redémarrage
+ */
+@Service
+@Slf4j
+public class PointageDedupIndex {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO pointage_fingerprints (fingerprint, batch_id, heure_pointage) " +
+            "SELECT f, ?, h FROM unnest(?::bigint[], ?::timestamp[]) AS t(f, h) " +
+            "ON CONFLICT (fingerprint) DO NOTHING RETURNING fingerprint";
+
+    private static final String RELEASE_SQL =
+            "DELETE FROM pointage_fingerprints WHERE batch_id = ? AND fingerprint = ANY(?::bigint[])";
+
+    private static final String RELEASE_BATCH_SQL =
+            "DELETE FROM pointage_fingerprints WHERE batch_id = ? RETURNING fingerprint";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final RabbitTemplate rabbitTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sync.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.dedup.window-days:30}")
+    private int windowDays;
+
+    private volatile LongHashSet index = new LongHashSet(1024);
+
+    public PointageDedupIndex(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              RabbitTemplate rabbitTemplate,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rabbitTemplate = rabbitTemplate;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("sync.dedup.index.size", this, d -> d.size())
+                .description("Empreintes de pointages présentes dans l'index en mémoire")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Écarter les pointages STANDARDS déjà publiés et réserver les autres pour ce batch
+     */
+    public DedupResult<PointageOfflineDto> reserveStandard(String batchId, List<PointageOfflineDto> pointages) {
+        return reserve(batchId, "STANDARD", pointages, PointageDedupIndex::fingerprintStandard,
+                PointageOfflineDto::getHeurePointage);
+    }
+
+    /**
+     * Écarter les pointages TERRAIN déjà publiés et réserver les autres pour ce batch
+     */
+    public DedupResult<PointageTerrainOfflineDto> reserveTerrain(String batchId, String email,
+                                                                 List<PointageTerrainOfflineDto> pointages) {
+        return reserve(batchId, "TERRAIN", pointages, p -> fingerprintTerrain(email, p),
+                PointageTerrainOfflineDto::getHeurePointage);
+    }
+
+    /**
+     * Libérer les empreintes des pointages STANDARDS d'un batch en échec définitif
+     * pour qu'une resynchronisation de l'appareil ne soit pas écartée
+     */
+    public void releaseStandard(String batchId, List<PointageOfflineDto> pointages) {
+        if (pointages != null) {
+            release(batchId, pointages.stream().map(PointageDedupIndex::fingerprintStandard).toList());
+        }
+    }
+
+    /**
+     * Libérer les empreintes des pointages TERRAIN d'un batch en échec définitif
+     */
+    public void releaseTerrain(String batchId, String email, List<PointageTerrainOfflineDto> pointages) {
+        if (pointages != null) {
+            release(batchId, pointages.stream().map(p -> fingerprintTerrain(email, p)).toList());
+        }
+    }
+
+    /**
+     * Libérer toutes les empreintes d'un batch (pointages du batch non disponibles)
+     */
+    public void releaseBatch(String batchId) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> released = jdbcTemplate.queryForList(RELEASE_BATCH_SQL, Long.class, batchId);
+        if (!released.isEmpty()) {
+            log.info("🧹 Batch {}: {} empreintes libérées", batchId, released.size());
+            publishRelease(batchId, released);
+        }
+    }
+
+    private <T> DedupResult<T> reserve(String batchId, String type, List<T> pointages,
+                                       ToLongFunction<T> fingerprint,
+                                       Function<T, LocalDateTime> heure) {
+        if (!enabled) {
+            return new DedupResult<>(pointages, 0);
+        }
+
+        // 1. Doublons connus en mémoire ou répétés dans le même upload
+        List<T> candidates = new ArrayList<>();
+        List<Long> candidateFingerprints = new ArrayList<>();
+        Set<Long> seenInBatch = new HashSet<>();
+        LongHashSet current = index;
+        synchronized (current) {
+            for (T pointage : pointages) {
+                long fp = fingerprint.applyAsLong(pointage);
+                if (!current.contains(fp) && seenInBatch.add(fp)) {
+                    candidates.add(pointage);
+                    candidateFingerprints.add(fp);
+                }
+            }
+        }
+
+        // 2. Insertion en base: les empreintes non insérées existent déjà (autre instance, historique)
+        List<T> kept = candidates;
+        if (!candidates.isEmpty()) {
+            Set<Long> inserted = insert(batchId, candidates, candidateFingerprints, heure);
+            if (inserted.size() < candidates.size()) {
+                kept = new ArrayList<>(inserted.size());
+                List<Long> alreadyKnown = new ArrayList<>();
+                for (int i = 0; i < candidates.size(); i++) {
+                    if (inserted.contains(candidateFingerprints.get(i))) {
+                        kept.add(candidates.get(i));
+                    } else {
+                        alreadyKnown.add(candidateFingerprints.get(i));
+                    }
+                }
+                addToIndex(alreadyKnown);
+            }
+            addToIndexAfterCommit(new ArrayList<>(inserted));
+        }
+
+        int suppressed = pointages.size() - kept.size();
+        if (suppressed > 0) {
+            meterRegistry.counter("sync.dedup.suppressed", "type", type).increment(suppressed);
+            log.info("🧹 Batch {}: {} pointages déjà synchronisés écartés", batchId, suppressed);
+        }
+        return new DedupResult<>(kept, suppressed);
+    }
+
+    private <T> Set<Long> insert(String batchId, List<T> pointages, List<Long> fingerprints,
+                                 Function<T, LocalDateTime> heure) {
+        Timestamp[] heures = pointages.stream()
+                .map(p -> Timestamp.valueOf(heure.apply(p)))
+                .toArray(Timestamp[]::new);
+        List<Long> inserted = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL);
+            ps.setString(1, batchId);
+            ps.setArray(2, connection.createArrayOf("bigint", fingerprints.toArray()));
+            ps.setArray(3, connection.createArrayOf("timestamp", heures));
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+        return new HashSet<>(inserted);
+    }
+
+    private void release(String batchId, List<Long> fingerprints) {
+        if (!enabled || fingerprints.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(RELEASE_SQL);
+            ps.setString(1, batchId);
+            ps.setArray(2, connection.createArrayOf("bigint", fingerprints.toArray()));
+            return ps;
+        });
+        log.info("🧹 Batch {}: {} empreintes libérées", batchId, fingerprints.size());
+        publishRelease(batchId, fingerprints);
+    }
+
+    private void publishRelease(String batchId, List<Long> fingerprints) {
+        DedupReleaseDto event = DedupReleaseDto.builder()
+                .batchId(batchId)
+                .fingerprints(fingerprints)
+                .build();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcastRelease(event);
+                }
+            });
+        } else {
+            broadcastRelease(event);
+        }
+    }
+
+    private void broadcastRelease(DedupReleaseDto event) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitConfig.DEDUP_RELEASE_EXCHANGE, "", event);
+        } catch (Exception e) {
+            // L'index local est tout de même mis à jour; les autres instances se recalent au prochain rechargement
+            log.warn("Impossible de diffuser la libération des empreintes du batch {}", event.getBatchId(), e);
+            onRelease(event);
+        }
+    }
+
+    /**
+     * Retirer de l'index local les empreintes libérées (toutes instances, y compris celle-ci)
+     */
+    @RabbitListener(queues = "#{dedupReleaseQueue.name}", concurrency = "1")
+    public void onRelease(DedupReleaseDto event) {
+        LongHashSet current = index;
+        synchronized (current) {
+            event.getFingerprints().forEach(current::remove);
+        }
+    }
+
+    /**
+     * Charger les empreintes de la fenêtre de rétention au démarrage
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Purger les empreintes hors fenêtre (les pointages plus anciens sont refusés par la validation)
+     * puis reconstruire l'index en mémoire
+     */
+    @Scheduled(cron = "${sync.dedup.purge-cron:0 30 3 * * *}")
+    public void purgeAndReload() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM pointage_fingerprints WHERE heure_pointage < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(windowDays + 1L)));
+        log.info("🧹 {} empreintes expirées supprimées", deleted);
+        reload();
+    }
+
+    private void reload() {
+        LocalDateTime since = LocalDateTime.now().minusDays(windowDays + 1L);
+        LongHashSet loaded = readOnlyTransaction.execute(status -> {
+            Long count = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pointage_fingerprints WHERE heure_pointage >= ?",
+                    Long.class, Timestamp.valueOf(since));
+            LongHashSet set = new LongHashSet((int) Math.min(count != null ? count : 0, Integer.MAX_VALUE / 4));
+            JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+            streaming.setFetchSize(10_000);
+            streaming.query("SELECT fingerprint FROM pointage_fingerprints WHERE heure_pointage >= ?",
+                    rs -> {
+                        set.add(rs.getLong(1));
+                    },
+                    Timestamp.valueOf(since));
+            return set;
+        });
+        index = loaded;
+        log.info("🧹 Index de déduplication chargé: {} empreintes", loaded.size());
+    }
+
+    private void addToIndex(List<Long> fingerprints) {
+        LongHashSet current = index;
+        synchronized (current) {
+            fingerprints.forEach(current::add);
+        }
+    }
+
+    private void addToIndexAfterCommit(List<Long> fingerprints) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToIndex(fingerprints);
+                }
+            });
+        } else {
+            addToIndex(fingerprints);
+        }
+    }
+
+    private int size() {
+        LongHashSet current = index;
+        synchronized (current) {
+            return current.size();
+        }
+    }
+
+    // ========== EMPREINTES ==========
+
+    static long fingerprintStandard(PointageOfflineDto pointage) {
+        return hash(1L, pointage.getMatricule(), epochSeconds(pointage.getHeurePointage()));
+    }
+
+    static long fingerprintTerrain(String email, PointageTerrainOfflineDto pointage) {
+        return hash(2L, hashString(email), epochSeconds(pointage.getHeurePointage()),
+                Math.round(pointage.getLatitude() * 1e7), Math.round(pointage.getLongitude() * 1e7));
+    }
+
+    private static long epochSeconds(LocalDateTime heure) {
+        return heure.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long hash(long... parts) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (long part : parts) {
+            h = mix(h ^ part);
+        }
+        return h;
+    }
+
+    // Finaliseur de SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // FNV-1a 64 bits
+    private static long hashString(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    /**
+     * Pointages conservés et nombre de doublons écartés
+     */
+    public record DedupResult<T>(List<T> kept, int suppressed) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Priorité RabbitMQ d'un batch (0 à max-priority)
+ * Les petits batchs de pointages récents passent devant les rattrapages d'historique
+ * et les retries; le score est regroupé en 3 voies pour les métriques
+ */
+@Component
+public class PriorityPolicy {
+
+    public static final String LANE_INTERACTIVE = "interactive";
+    public static final String LANE_NORMAL = "normal";
+    public static final String LANE_BULK = "bulk";
+
+    private final int maxPriority;
+    private final int smallBatchSize;
+    private final int largeBatchSize;
+    private final Duration freshAge;
+    private final Duration backfillAge;
+    private final int maxRetryPenalty;
+    private final int terrainBonus;
+    private final int interactiveMin;
+    private final int bulkMax;
+
+    public PriorityPolicy(@Value("${sync.priority.max-priority:9}") int maxPriority,
+                          @Value("${sync.priority.small-batch-size:20}") int smallBatchSize,
+                          @Value("${sync.priority.large-batch-size:500}") int largeBatchSize,
+                          @Value("${sync.priority.fresh-age:PT15M}") Duration freshAge,
+                          @Value("${sync.priority.backfill-age:PT24H}") Duration backfillAge,
+                          @Value("${sync.priority.max-retry-penalty:2}") int maxRetryPenalty,
+                          @Value("${sync.priority.terrain-bonus:1}") int terrainBonus,
+                          @Value("${sync.priority.interactive-min:7}") int interactiveMin,
+                          @Value("${sync.priority.bulk-max:2}") int bulkMax) {
+        this.maxPriority = maxPriority;
+        this.smallBatchSize = smallBatchSize;
+        this.largeBatchSize = largeBatchSize;
+        this.freshAge = freshAge;
+        this.backfillAge = backfillAge;
+        this.maxRetryPenalty = maxRetryPenalty;
+        this.terrainBonus = terrainBonus;
+        this.interactiveMin = interactiveMin;
+        this.bulkMax = bulkMax;
+    }
+
+    public int getMaxPriority() {
+        return maxPriority;
+    }
+
+    /**
+     * Calculer la priorité d'un message: taille du batch, âge du pointage le plus récent,
+     * nombre de retries et type
+     */
+    public int score(SyncMessageDto message) {
+        int score = maxPriority / 2;
+
+        // Pointages déplacés en claim-check: le batch dépasse le seuil, donc gros
+        int size = countPointages(message);
+        boolean offloaded = size == 0 && message.getPayloadRef() != null;
+        if (offloaded || size >= largeBatchSize) {
+            score -= 3;
+        } else if (size <= smallBatchSize) {
+            score += 3;
+        }
+
+        LocalDateTime newest = newestPointage(message);
+        if (newest != null) {
+            Duration age = Duration.between(newest, LocalDateTime.now());
+            if (age.compareTo(freshAge) <= 0) {
+                score += 2;
+            } else if (age.compareTo(backfillAge) >= 0) {
+                score -= 2;
+            }
+        }
+
+        int retries = message.getRetryCount() != null ? message.getRetryCount() : 0;
+        score -= Math.min(retries, maxRetryPenalty);
+
+        if (message.getTypePointage() == TypePointageSync.TERRAIN) {
+            score += terrainBonus;
+        }
+        return Math.max(0, Math.min(maxPriority, score));
+    }
+
+    /**
+     * Voie d'une priorité (tag des métriques d'attente)
+     */
+    public String lane(Integer priority) {
+        if (priority == null) {
+            return LANE_NORMAL;
+        }
+        if (priority >= interactiveMin) {
+            return LANE_INTERACTIVE;
+        }
+        return priority <= bulkMax ? LANE_BULK : LANE_NORMAL;
+    }
+
+    private static int countPointages(SyncMessageDto message) {
+        List<?> pointages = message.getTypePointage() == TypePointageSync.TERRAIN
+                ? message.getPointagesTerrain()
+                : message.getPointages();
+        return pointages != null ? pointages.size() : 0;
+    }
+
+    private static LocalDateTime newestPointage(SyncMessageDto message) {
+        Stream<LocalDateTime> dates = message.getTypePointage() == TypePointageSync.TERRAIN
+                ? stream(message.getPointagesTerrain()).map(PointageTerrainOfflineDto::getHeurePointage)
+                : stream(message.getPointages()).map(PointageOfflineDto::getHeurePointage);
+        return dates.filter(Objects::nonNull).max(LocalDateTime::compareTo).orElse(null);
+    }
+
+    private static <T> Stream<T> stream(List<T> list) {
+        return list != null ? list.stream() : Stream.empty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.seneau.offline_sync_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Temps d'attente des batchs dans les queues de pointage, par voie de priorité
+ * Appliqué à la réception par les containers des listeners; l'horodatage posé par le producer
+ * tient compte du délai des paliers de retry, seul le temps passé en file est mesuré
+ */
+@Component
+public class QueueWaitMetrics implements MessagePostProcessor {
+
+    public static final String READY_AT_HEADER = "x-ready-at";
+
+    private final PriorityPolicy priorityPolicy;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public QueueWaitMetrics(PriorityPolicy priorityPolicy, MeterRegistry meterRegistry) {
+        this.priorityPolicy = priorityPolicy;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Horodater un message publié, disponible après delayMs
+     */
+    public static void stamp(MessageProperties properties, int priority, long delayMs) {
+        properties.setPriority(priority);
+        properties.setHeader(READY_AT_HEADER, System.currentTimeMillis() + delayMs);
+    }
+
+    @Override
+    public Message postProcessMessage(Message message) throws AmqpException {
+        MessageProperties properties = message.getMessageProperties();
+        if (properties.getHeader(READY_AT_HEADER) instanceof Number readyAt) {
+            long waitMs = Math.max(0, System.currentTimeMillis() - readyAt.longValue());
+            timer(priorityPolicy.lane(properties.getPriority())).record(Duration.ofMillis(waitMs));
+        }
+        return message;
+    }
+
+    private Timer timer(String lane) {
+        return timers.computeIfAbsent(lane, l -> Timer.builder("sync.queue.wait")
+                .description("Attente d'un batch dans la queue avant sa consommation")
+                .tag("lane", l)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -8,8 +8,12 @@ import com.seneau.offline_sync_service.data.repository.SyncBatchRepository;
 import com.seneau.offline_sync_service.web.client.PointageServiceClient;
 import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
 import com.seneau.offline_sync_service.web.dto.PointageBatchRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
 import com.seneau.offline_sync_service.web.dto.PointageTerrainBatchRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
 import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import com.seneau.offline_sync_service.web.exception.PointageCallRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
@@ -17,7 +21,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -27,14 +38,31 @@ public class RabbitMQConsumer {
     private final PointageServiceClient pointageClient;
     private final SyncBatchRepository syncBatchRepository;
     private final RabbitMQProducer rabbitMQProducer;
+    private final ChunkedDispatcher chunkedDispatcher;
+    private final MeterRegistry meterRegistry;
+    private final PointageDedupIndex dedupIndex;
+    private final ClaimCheckService claimCheckService;
+    private final BatchResultsStore batchResultsStore;
+    private final SyncStatusCache syncStatusCache;
+    private final SyncStatsService syncStatsService;
+    private final PointageCallGuard pointageCallGuard;
+    private final AgentRateLimiter agentRateLimiter;
+    private final SyncMetrics syncMetrics;
 
     /**
      * Consommer les messages de la queue principale
      * Gère les 2 types de pointages: STANDARD et TERRAIN
+     * Désactivé quand le mode batch (sync.consumer.batch.enabled) est actif
      */
-    @RabbitListener(queues = RabbitConfig.POINTAGE_QUEUE)
+    @RabbitListener(
+            id = RabbitConfig.POINTAGE_LISTENER_ID,
+            queues = "#{pointageShards.queueNames}",
+            autoStartup = "#{!${sync.consumer.batch.enabled:false}}"
+    )
     @Transactional
     public void consumeSyncMessage(SyncMessageDto message) {
+        meterRegistry.counter("sync.consumer.messages", "mode", "single").increment();
+
         String batchId = message.getBatchId();
         TypePointageSync type = message.getTypePointage();
 
@@ -44,66 +72,277 @@ public class RabbitMQConsumer {
         SyncBatch batch = syncBatchRepository.findByBatchId(batchId)
                 .orElseThrow(() -> new RuntimeException("Batch non trouvé: " + batchId));
 
-        try {
-            // Mettre à jour le statut
-            batch.setStatus(SyncStatus.IN_PROGRESS);
-            syncBatchRepository.save(batch);
+        // Agent au-delà de son débit: batch différé, les autres agents passent devant
+        if (deferIfThrottled(batch, message)) {
+            return;
+        }
+        syncMetrics.recordQueueWait(message);
 
-            // Appeler le service approprié selon le type
-            List<PointageBatchDto> results;
+        // Recharger les pointages des batchs volumineux (claim-check)
+        if (!syncMetrics.time("resolve", type, () -> claimCheckService.resolve(message))) {
+            failMissingPayload(batch);
+            return;
+        }
 
-            if (type == TypePointageSync.STANDARD) {
-                results = processBatchStandard(message);
-            } else {
-                results = processBatchTerrain(message);
+        // Mettre à jour le statut
+        batch.setStatus(SyncStatus.IN_PROGRESS);
+        saveStatus(batch);
+
+        processBatch(batch, message, "single");
+    }
+
+    /**
+     * Consommer les messages par lots (mode batch)
+     * Les messages d'un même email, type et privilèges sont regroupés
+     * en un seul appel au service de pointage, puis les résultats sont
+     * redistribués à chaque SyncBatch
+     */
+    @RabbitListener(
+            id = RabbitConfig.POINTAGE_BATCH_LISTENER_ID,
+            queues = "#{pointageShards.queueNames}",
+            containerFactory = "batchRabbitListenerContainerFactory",
+            autoStartup = "${sync.consumer.batch.enabled:false}"
+    )
+    public void consumeSyncMessages(List<SyncMessageDto> messages) {
+        log.info("📨 Consommation d'un lot de {} messages", messages.size());
+        meterRegistry.counter("sync.consumer.messages", "mode", "batch").increment(messages.size());
+
+        // Regrouper les batchs par email / type / privilèges
+        Map<GroupKey, List<PendingBatch>> groups = new LinkedHashMap<>();
+        for (SyncMessageDto message : messages) {
+            SyncBatch batch = syncBatchRepository.findByBatchId(message.getBatchId()).orElse(null);
+            if (batch == null) {
+                log.error("❌ Batch non trouvé: {}, message ignoré", message.getBatchId());
+                continue;
+            }
+            if (deferIfThrottled(batch, message)) {
+                continue;
+            }
+            syncMetrics.recordQueueWait(message);
+            if (!syncMetrics.time("resolve", message.getTypePointage(), () -> claimCheckService.resolve(message))) {
+                failMissingPayload(batch);
+                continue;
+            }
+            batch.setStatus(SyncStatus.IN_PROGRESS);
+            saveStatus(batch);
+
+            GroupKey key = new GroupKey(
+                    message.getEmail(),
+                    message.getTypePointage(),
+                    message.getTypePointage() == TypePointageSync.TERRAIN ? message.getPrivileges() : null
+            );
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(new PendingBatch(batch, message));
+        }
+
+        // Découper chaque groupe pour ne pas dépasser la taille d'un chunk par appel
+        // Les batchs plus gros qu'un chunk suivent le chemin d'envoi par chunks
+        int maxPointagesPerCall = chunkedDispatcher.getChunkSize();
+        groups.forEach((key, pendings) -> {
+            List<PendingBatch> current = new ArrayList<>();
+            int currentSize = 0;
+            for (PendingBatch pending : pendings) {
+                int size = pending.size();
+                if (size > maxPointagesPerCall) {
+                    processBatch(pending.batch(), pending.message(), "batch");
+                    continue;
+                }
+                if (!current.isEmpty() && currentSize + size > maxPointagesPerCall) {
+                    processGroup(key, current);
+                    current = new ArrayList<>();
+                    currentSize = 0;
+                }
+                current.add(pending);
+                currentSize += size;
+            }
+            if (!current.isEmpty()) {
+                processGroup(key, current);
             }
+        });
+    }
 
-            // Analyser les résultats
-            analyzeAndUpdateBatch(batch, results);
+    /**
+     * Envoyer un groupe de batchs en un seul appel et redistribuer les résultats
+     */
+    private void processGroup(GroupKey key, List<PendingBatch> group) {
+        meterRegistry.counter("sync.consumer.downstream.calls", "mode", "batch").increment();
 
+        log.info("⚙️ Appel groupé pour {} batchs {} de {}", group.size(), key.type(), key.email());
+
+        List<PointageBatchDto> results;
+        try {
+            results = key.type() == TypePointageSync.STANDARD
+                    ? processBatchStandard(key.email(), group.stream()
+                            .flatMap(p -> p.message().getPointages().stream())
+                            .toList())
+                    : processBatchTerrain(key.email(), group.stream()
+                            .flatMap(p -> p.message().getPointagesTerrain().stream())
+                            .toList(), key.privileges());
         } catch (Exception e) {
-            log.error("❌ Erreur lors du traitement du batch {}", batchId, e);
-            handleError(batch, message, e);
+            log.error("❌ Erreur lors de l'appel groupé pour {} batchs", group.size(), e);
+            group.forEach(p -> handleError(p.batch(), p.message(), e));
+            return;
+        }
+
+        List<List<PointageBatchDto>> split = splitResults(key.type(), group, results);
+        for (int i = 0; i < group.size(); i++) {
+            analyzeAndUpdateBatch(group.get(i).batch(), group.get(i).message(), split.get(i));
+        }
+    }
+
+    /**
+     * Redistribuer les résultats d'un appel groupé à chaque batch
+     * Le service de pointage renvoie un résultat par pointage, dans l'ordre d'envoi.
+     * Si le nombre de résultats ne correspond pas, on rattache chaque résultat
+     * au premier pointage compatible (matricule/date pour STANDARD, date pour TERRAIN)
+     */
+    private List<List<PointageBatchDto>> splitResults(TypePointageSync type,
+                                                      List<PendingBatch> group,
+                                                      List<PointageBatchDto> results) {
+        List<List<PointageBatchDto>> split = new ArrayList<>();
+        int expected = group.stream().mapToInt(PendingBatch::size).sum();
+
+        if (results.size() == expected) {
+            int offset = 0;
+            for (PendingBatch pending : group) {
+                split.add(new ArrayList<>(results.subList(offset, offset + pending.size())));
+                offset += pending.size();
+            }
+            return split;
+        }
+
+        log.warn("⚠️ Appel groupé: {} résultats pour {} pointages, rattachement par clé",
+                 results.size(), expected);
+
+        List<List<String>> remainingKeys = new ArrayList<>();
+        for (PendingBatch pending : group) {
+            split.add(new ArrayList<>());
+            remainingKeys.add(new ArrayList<>(type == TypePointageSync.STANDARD
+                    ? pending.message().getPointages().stream()
+                            .map(p -> p.getMatricule() + "|" + p.getHeurePointage().toLocalDate())
+                            .toList()
+                    : pending.message().getPointagesTerrain().stream()
+                            .map(p -> "|" + p.getHeurePointage().toLocalDate())
+                            .toList()));
+        }
+
+        for (PointageBatchDto result : results) {
+            String resultKey = (type == TypePointageSync.STANDARD ? result.getAgent() : "") + "|" + result.getDate();
+            for (int i = 0; i < group.size(); i++) {
+                if (remainingKeys.get(i).remove(resultKey)) {
+                    split.get(i).add(result);
+                    break;
+                }
+            }
         }
+        return split;
+    }
+
+    /**
+     * Traiter un batch par chunks parallèles
+     * Les chunks réussis sont conservés, seuls les chunks en échec repartent en retry
+     */
+    private void processBatch(SyncBatch batch, SyncMessageDto message, String mode) {
+        String batchId = batch.getBatchId();
+        int size = message.getTypePointage() == TypePointageSync.STANDARD
+                ? message.getPointages().size()
+                : message.getPointagesTerrain().size();
+        int chunkSize = chunkedDispatcher.getChunkSize();
+        meterRegistry.counter("sync.consumer.downstream.calls", "mode", mode)
+                .increment(Math.max(1, (size + chunkSize - 1) / chunkSize));
+
+        if (message.getTypePointage() == TypePointageSync.STANDARD) {
+            ChunkedDispatcher.ChunkedResult<PointageOfflineDto> result = chunkedDispatcher.dispatch(
+                    batchId, message.getPointages(),
+                    chunk -> processBatchStandard(message.getEmail(), chunk));
+            if (result.hasFailures()) {
+                releaseRejectedStandard(batchId, succeededItems(message.getPointages(), result.failedItems()),
+                        result.results());
+                message.setPointages(result.failedItems());
+            }
+            completeOrRetry(batch, message, result);
+        } else {
+            ChunkedDispatcher.ChunkedResult<PointageTerrainOfflineDto> result = chunkedDispatcher.dispatch(
+                    batchId, message.getPointagesTerrain(),
+                    chunk -> processBatchTerrain(message.getEmail(), chunk, message.getPrivileges()));
+            if (result.hasFailures()) {
+                releaseRejectedTerrain(batchId, message.getEmail(),
+                        succeededItems(message.getPointagesTerrain(), result.failedItems()), result.results());
+                message.setPointagesTerrain(result.failedItems());
+            }
+            completeOrRetry(batch, message, result);
+        }
+    }
+
+    /**
+     * Finaliser le batch, ou conserver les résultats partiels et réessayer le reste
+     */
+    private void completeOrRetry(SyncBatch batch, SyncMessageDto message,
+                                 ChunkedDispatcher.ChunkedResult<?> result) {
+        if (!result.hasFailures()) {
+            analyzeAndUpdateBatch(batch, message, result.results());
+            return;
+        }
+
+        log.error("❌ Erreur lors du traitement du batch {}: {} pointages à réessayer",
+                  batch.getBatchId(), result.failedItems().size(), result.error());
+        if (!result.results().isEmpty()) {
+            batchResultsStore.save(batch, mergeResults(batch, result.results()));
+        }
+        handleError(batch, message, result.error());
     }
 
     /**
      * Traiter un batch STANDARD (avec matricules)
      */
-    private List<PointageBatchDto> processBatchStandard(SyncMessageDto message) {
-        log.info("⚙️ Traitement batch STANDARD avec {} pointages",
-                 message.getPointages().size());
+    private List<PointageBatchDto> processBatchStandard(String email, List<PointageOfflineDto> pointages) {
+        log.info("⚙️ Traitement batch STANDARD avec {} pointages", pointages.size());
 
         PointageBatchRequestDto request = new PointageBatchRequestDto();
-        request.setPointages(message.getPointages());
+        request.setPointages(pointages);
 
-        return pointageClient.enregistrerPointagesOffline(
-                message.getEmail(),
-                request
-        );
+        List<PointageBatchDto> results = syncMetrics.time("downstream", TypePointageSync.STANDARD,
+                () -> pointageCallGuard.call(() -> pointageClient.enregistrerPointagesOffline(email, request)));
+        syncMetrics.recordPersisted(TypePointageSync.STANDARD,
+                pointages.stream().map(PointageOfflineDto::getHeurePointage).toList(), results);
+        return results;
     }
 
     /**
      * Traiter un batch TERRAIN (avec GPS)
      */
-    private List<PointageBatchDto> processBatchTerrain(SyncMessageDto message) {
-        log.info("⚙️ Traitement batch TERRAIN avec {} pointages",
-                 message.getPointagesTerrain().size());
+    private List<PointageBatchDto> processBatchTerrain(String email, List<PointageTerrainOfflineDto> pointages,
+                                                       List<String> privileges) {
+        log.info("⚙️ Traitement batch TERRAIN avec {} pointages", pointages.size());
 
         PointageTerrainBatchRequestDto request = new PointageTerrainBatchRequestDto();
-        request.setPointages(message.getPointagesTerrain());
-
-        return pointageClient.enregistrerPointagesOfflineTerrain(
-                message.getEmail(),
-                request,
-                message.getPrivileges() != null ? message.getPrivileges() : List.of("AUTH_COLLABORATEUR")
-        );
+        request.setPointages(pointages);
+
+        List<PointageBatchDto> results = syncMetrics.time("downstream", TypePointageSync.TERRAIN,
+                () -> pointageCallGuard.call(() -> pointageClient.enregistrerPointagesOfflineTerrain(
+                        email,
+                        request,
+                        privileges != null ? privileges : List.of("AUTH_COLLABORATEUR")
+                )));
+        syncMetrics.recordPersisted(TypePointageSync.TERRAIN,
+                pointages.stream().map(PointageTerrainOfflineDto::getHeurePointage).toList(), results);
+        return results;
     }
 
     /**
      * Analyser les résultats et mettre à jour le batch
+     * newResults correspond aux pointages du message, dans l'ordre d'envoi
      */
-    private void analyzeAndUpdateBatch(SyncBatch batch, List<PointageBatchDto> results) {
+    private void analyzeAndUpdateBatch(SyncBatch batch, SyncMessageDto message, List<PointageBatchDto> newResults) {
+        // Pointages refusés par le service: un renvoi corrigé ne doit pas être écarté comme doublon
+        if (message.getTypePointage() == TypePointageSync.TERRAIN) {
+            releaseRejectedTerrain(batch.getBatchId(), message.getEmail(), message.getPointagesTerrain(), newResults);
+        } else {
+            releaseRejectedStandard(batch.getBatchId(), message.getPointages(), newResults);
+        }
+
+        // Ajouter aux résultats déjà obtenus lors des tentatives précédentes (chunks réussis)
+        List<PointageBatchDto> results = mergeResults(batch, newResults);
+
         long successCount = results.stream()
                 .filter(r -> "SUCCES".equals(r.getStatut()))
                 .count();
@@ -113,7 +352,6 @@ public class RabbitMQConsumer {
         // Mettre à jour le batch
         batch.setSuccessCount((int) successCount);
         batch.setFailureCount((int) failureCount);
-        batch.setResults(results);
         batch.setCompletedAt(LocalDateTime.now());
 
         if (failureCount == 0) {
@@ -126,13 +364,33 @@ public class RabbitMQConsumer {
                      batch.getBatchId(), successCount, failureCount);
         }
 
-        syncBatchRepository.save(batch);
+        syncMetrics.time("update", typeOf(batch), () -> {
+            saveStatus(batch);
+            batchResultsStore.save(batch, results);
+            claimCheckService.release(batch.getBatchId());
+        });
+        syncMetrics.recordCompleted(typeOf(batch), batch.getStatus());
+    }
+
+    private static TypePointageSync typeOf(SyncBatch batch) {
+        return batch.getTypePointage() != null ? TypePointageSync.valueOf(batch.getTypePointage()) : null;
+    }
+
+    private List<PointageBatchDto> mergeResults(SyncBatch batch, List<PointageBatchDto> newResults) {
+        List<PointageBatchDto> merged = batchResultsStore.load(batch.getBatchId());
+        merged.addAll(newResults);
+        return merged;
     }
 
     /**
      * Gérer les erreurs avec retry
      */
     private void handleError(SyncBatch batch, SyncMessageDto message, Exception e) {
+        if (e instanceof PointageCallRejectedException rejected) {
+            deferRejected(batch, message, rejected);
+            return;
+        }
+
         int retryCount = message.getRetryCount() != null ? message.getRetryCount() : 0;
         Integer maxRetries = message.getMaxRetries() != null ? message.getMaxRetries() : 3;
 
@@ -144,31 +402,42 @@ public class RabbitMQConsumer {
                      batch.getBatchId(), retryCount + 1, maxRetries);
 
             batch.setStatus(SyncStatus.RETRY);
-            syncBatchRepository.save(batch);
+            saveStatus(batch);
 
-            // Renvoyer dans la queue avec compteur incrémenté
+            // Renvoyer dans le palier de retry différé, sans bloquer le thread du listener
+            long backoffMs = RabbitConfig.retryDelayFor(retryCount);
             message.setRetryCount(retryCount + 1);
-
-            try {
-                // Backoff exponentiel: 2s, 4s, 8s
-                long backoffMs = (long) (2000 * Math.pow(2, retryCount));
-                Thread.sleep(backoffMs);
-                rabbitMQProducer.sendSyncMessage(message);
-                log.info("🔄 Batch {} renvoyé à la queue après {}ms",
-                         batch.getBatchId(), backoffMs);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                log.error("Interruption du thread de retry", ie);
-            }
+            claimCheckService.offload(message);
+            rabbitMQProducer.sendSyncMessageDelayed(message, backoffMs);
+            log.info("🔄 Batch {} planifié pour réessai dans {}ms",
+                     batch.getBatchId(), backoffMs);
 
         } else {
             // Échec définitif
             log.error("❌ Échec définitif du batch {} après {} tentatives",
                       batch.getBatchId(), maxRetries);
 
-            batch.setStatus(SyncStatus.FAILED);
+            List<PointageBatchDto> partialResults = batchResultsStore.load(batch.getBatchId());
+            if (!partialResults.isEmpty()) {
+                // Des chunks ont abouti lors des tentatives précédentes
+                long successCount = partialResults.stream()
+                        .filter(r -> "SUCCES".equals(r.getStatut()))
+                        .count();
+                batch.setSuccessCount((int) successCount);
+                batch.setFailureCount(batch.getTotalPointages() - (int) successCount);
+                batch.setStatus(SyncStatus.PARTIAL_FAILURE);
+            } else {
+                batch.setStatus(SyncStatus.FAILED);
+            }
             batch.setCompletedAt(LocalDateTime.now());
-            syncBatchRepository.save(batch);
+            saveStatus(batch);
+            if (!partialResults.isEmpty()) {
+                batchResultsStore.save(batch, partialResults); // Échecs des chunks aboutis
+            }
+
+            // Les pointages restants n'ont pas été synchronisés: l'appareil doit pouvoir les renvoyer
+            // Payload conservé pour un réessai manuel, purgé après sync.claim-check.failed-retention
+            releaseFingerprints(message);
         }
     }
 
@@ -183,21 +452,176 @@ public class RabbitMQConsumer {
                   message.getTypePointage(),
                   message.getEmail());
 
+        // Recharger les pointages pour pouvoir libérer leurs empreintes
+        claimCheckService.resolve(message);
+
         // Mettre à jour le batch en base
         syncBatchRepository.findByBatchId(message.getBatchId())
                 .ifPresent(batch -> {
                     batch.setStatus(SyncStatus.FAILED);
                     batch.setErrorMessage("Message envoyé au DLQ après échecs multiples");
                     batch.setCompletedAt(LocalDateTime.now());
-                    syncBatchRepository.save(batch);
+                    saveStatus(batch);
 
                     log.error("💀 Batch {} marqué comme FAILED dans la BDD", message.getBatchId());
                 });
+        releaseFingerprints(message); // Payload conservé pour un réessai manuel
 
         // TODO: Envoyer une alerte email/Slack/etc.
         sendAlert(message);
     }
 
+    /**
+     * Enregistrer une transition de statut et la diffuser aux caches de statuts
+     * Un statut final est aussi ajouté aux statistiques de l'utilisateur
+     */
+    private void saveStatus(SyncBatch batch) {
+        syncBatchRepository.save(batch);
+        if (batch.getStatus().isTerminal()) {
+            syncStatsService.recordTerminal(batch.getBatchId());
+        }
+        syncStatusCache.publish(batch);
+    }
+
+    /**
+     * Différer le batch d'un agent qui a dépassé son débit (sans consommer de tentative)
+     */
+    private boolean deferIfThrottled(SyncBatch batch, SyncMessageDto message) {
+        long waitMs = agentRateLimiter.tryAcquire(message.getEmail(), batch.getTotalPointages());
+        if (waitMs == 0) {
+            return false;
+        }
+        long delayMs = RabbitConfig.delayTierFor(waitMs);
+        log.info("⏳ Batch {} de {} différé de {}ms (débit de l'agent dépassé)",
+                 batch.getBatchId(), message.getEmail(), delayMs);
+        rabbitMQProducer.sendSyncMessageDelayed(message, delayMs);
+        return true;
+    }
+
+    /**
+     * Différer un batch dont l'appel a été refusé par le disjoncteur ou la limite (sans consommer de tentative)
+     * Le service de pointage n'a pas été appelé: seule la fin de l'ouverture du disjoncteur est attendue
+     */
+    private void deferRejected(SyncBatch batch, SyncMessageDto message, PointageCallRejectedException e) {
+        long delayMs = RabbitConfig.delayTierFor(e.getRetryAfterMs());
+        log.warn("⏳ Batch {} différé de {}ms sans consommer de tentative: {}",
+                 batch.getBatchId(), delayMs, e.getMessage());
+
+        batch.setErrorMessage(e.getMessage());
+        batch.setStatus(SyncStatus.RETRY);
+        saveStatus(batch);
+
+        claimCheckService.offload(message);
+        rabbitMQProducer.sendSyncMessageDelayed(message, delayMs);
+    }
+
+    /**
+     * Finaliser un batch dont le payload claim-check a disparu (déjà finalisé ou purgé)
+     */
+    private void failMissingPayload(SyncBatch batch) {
+        if (batch.getStatus().isTerminal()) {
+            log.warn("⚠️ Batch {} déjà finalisé ({}), message ignoré", batch.getBatchId(), batch.getStatus());
+            return;
+        }
+        batch.setStatus(SyncStatus.FAILED);
+        batch.setErrorMessage("Payload claim-check introuvable");
+        batch.setCompletedAt(LocalDateTime.now());
+        saveStatus(batch);
+    }
+
+    /**
+     * Libérer les empreintes de déduplication des pointages non synchronisés du message
+     */
+    private void releaseFingerprints(SyncMessageDto message) {
+        try {
+            if (message.getTypePointage() == TypePointageSync.TERRAIN) {
+                dedupIndex.releaseTerrain(message.getBatchId(), message.getEmail(), message.getPointagesTerrain());
+            } else {
+                dedupIndex.releaseStandard(message.getBatchId(), message.getPointages());
+            }
+        } catch (Exception e) {
+            log.error("Impossible de libérer les empreintes du batch {}", message.getBatchId(), e);
+        }
+    }
+
+    /**
+     * Libérer les empreintes des pointages STANDARDS dont le résultat n'est pas SUCCES
+     */
+    private void releaseRejectedStandard(String batchId, List<PointageOfflineDto> pointages,
+                                         List<PointageBatchDto> results) {
+        try {
+            List<PointageOfflineDto> rejected = rejectedPointages(pointages, results,
+                    p -> p.getMatricule() + "|" + p.getHeurePointage().toLocalDate(),
+                    r -> r.getAgent() + "|" + r.getDate());
+            if (!rejected.isEmpty()) {
+                dedupIndex.releaseStandard(batchId, rejected);
+            }
+        } catch (Exception e) {
+            log.error("Impossible de libérer les empreintes des pointages refusés du batch {}", batchId, e);
+        }
+    }
+
+    /**
+     * Libérer les empreintes des pointages TERRAIN dont le résultat n'est pas SUCCES
+     */
+    private void releaseRejectedTerrain(String batchId, String email, List<PointageTerrainOfflineDto> pointages,
+                                        List<PointageBatchDto> results) {
+        try {
+            List<PointageTerrainOfflineDto> rejected = rejectedPointages(pointages, results,
+                    p -> "|" + p.getHeurePointage().toLocalDate(),
+                    r -> "|" + r.getDate());
+            if (!rejected.isEmpty()) {
+                dedupIndex.releaseTerrain(batchId, email, rejected);
+            }
+        } catch (Exception e) {
+            log.error("Impossible de libérer les empreintes des pointages refusés du batch {}", batchId, e);
+        }
+    }
+
+    /**
+     * Pointages dont le résultat n'est pas SUCCES
+     * Un résultat par pointage dans l'ordre d'envoi; sinon rattachement au premier pointage de même clé
+     */
+    static <T> List<T> rejectedPointages(List<T> pointages, List<PointageBatchDto> results,
+                                         Function<T, String> pointageKey,
+                                         Function<PointageBatchDto, String> resultKey) {
+        List<T> rejected = new ArrayList<>();
+        if (pointages == null || results.stream().allMatch(r -> "SUCCES".equals(r.getStatut()))) {
+            return rejected;
+        }
+        if (results.size() == pointages.size()) {
+            for (int i = 0; i < results.size(); i++) {
+                if (!"SUCCES".equals(results.get(i).getStatut())) {
+                    rejected.add(pointages.get(i));
+                }
+            }
+            return rejected;
+        }
+        List<T> remaining = new ArrayList<>(pointages);
+        for (PointageBatchDto result : results) {
+            String key = resultKey.apply(result);
+            for (int i = 0; i < remaining.size(); i++) {
+                if (pointageKey.apply(remaining.get(i)).equals(key)) {
+                    T pointage = remaining.remove(i);
+                    if (!"SUCCES".equals(result.getStatut())) {
+                        rejected.add(pointage);
+                    }
+                    break;
+                }
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Pointages des chunks aboutis (les chunks en échec sont des copies des mêmes instances)
+     */
+    private static <T> List<T> succeededItems(List<T> items, List<T> failedItems) {
+        Set<T> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        failed.addAll(failedItems);
+        return items.stream().filter(item -> !failed.contains(item)).toList();
+    }
+
     /**
      * Envoyer une alerte pour les messages en DLQ
      */
@@ -210,4 +634,21 @@ public class RabbitMQConsumer {
                   message.getRetryCount(),
                   message.getMaxRetries());
     }
-}
\ No newline at end of file
+
+    /**
+     * Clé de regroupement des messages en mode batch
+     */
+    private record GroupKey(String email, TypePointageSync type, List<String> privileges) {
+    }
+
+    /**
+     * Batch en attente de traitement avec son message
+     */
+    private record PendingBatch(SyncBatch batch, SyncMessageDto message) {
+        int size() {
+            return message.getTypePointage() == TypePointageSync.STANDARD
+                    ? message.getPointages().size()
+                    : message.getPointagesTerrain().size();
+        }
+    }
+}
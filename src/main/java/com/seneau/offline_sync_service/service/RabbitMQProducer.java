@@ -1,18 +1,142 @@
 package com.seneau.offline_sync_service.service;
 
+import com.seneau.offline_sync_service.config.PointageShards;
 import com.seneau.offline_sync_service.config.RabbitConfig;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
 import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RabbitMQProducer {
 
     private final RabbitTemplate rabbitTemplate;
+    private final PointageShards pointageShards;
+    private final PriorityPolicy priorityPolicy;
+    private final MeterRegistry meterRegistry;
+
+    // Fenêtre de publications en attente de confirm: borne la mémoire et la pression sur le broker
+    private final Semaphore confirmWindow;
+    private final Set<CompletableFuture<Void>> outstanding = ConcurrentHashMap.newKeySet();
+
+    private final long confirmTimeoutMs;
+    private final long flushTimeoutMs;
+
+    public RabbitMQProducer(RabbitTemplate rabbitTemplate,
+                            PointageShards pointageShards,
+                            PriorityPolicy priorityPolicy,
+                            MeterRegistry meterRegistry,
+                            @Value("${sync.publisher.max-outstanding-confirms:256}") int maxOutstandingConfirms,
+                            @Value("${sync.publisher.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                            @Value("${sync.publisher.flush-timeout-ms:10000}") long flushTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.pointageShards = pointageShards;
+        this.priorityPolicy = priorityPolicy;
+        this.meterRegistry = meterRegistry;
+        this.confirmWindow = new Semaphore(maxOutstandingConfirms);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.flushTimeoutMs = flushTimeoutMs;
+        Gauge.builder("sync.publisher.outstanding.confirms", outstanding, Set::size)
+                .description("Publications en attente de confirm du broker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publier un message de synchronisation sans attendre le broker
+     * Le future est complété à l'ack du broker, en erreur sur nack, message non routé ou timeout.
+     * Bloque uniquement si la fenêtre de confirms en attente est pleine
+     */
+    public CompletableFuture<Void> sendSyncMessageAsync(SyncMessageDto message) {
+        return sendAsync(RabbitConfig.POINTAGE_EXCHANGE, pointageShards.routingKey(message.getEmail()),
+                message, priorityPolicy.score(message));
+    }
+
+    /**
+     * Publication asynchrone vers un exchange quelconque (utilisée par le relais de l'outbox)
+     */
+    public CompletableFuture<Void> sendAsync(String exchange, String routingKey, SyncMessageDto message, int priority) {
+        try {
+            if (!confirmWindow.tryAcquire(confirmTimeoutMs, TimeUnit.MILLISECONDS)) {
+                countConfirm("window_full");
+                return CompletableFuture.failedFuture(
+                        new TimeoutException("Fenêtre de confirms pleine pour le batch " + message.getBatchId()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        outstanding.add(result);
+        result.whenComplete((r, e) -> {
+            outstanding.remove(result);
+            confirmWindow.release();
+        });
+
+        correlation.getFuture()
+                .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((confirm, error) -> {
+                    if (error != null) {
+                        countConfirm("timeout");
+                        result.completeExceptionally(error);
+                    } else if (correlation.getReturned() != null) {
+                        countConfirm("returned");
+                        result.completeExceptionally(new AmqpException(
+                                "Message non routé: " + correlation.getReturned().getReplyText()));
+                    } else if (!confirm.isAck()) {
+                        countConfirm("nack");
+                        result.completeExceptionally(new AmqpException("Nack du broker: " + confirm.getReason()));
+                    } else {
+                        countConfirm("ack");
+                        result.complete(null);
+                    }
+                });
+
+        try {
+            rabbitTemplate.convertAndSend(exchange, routingKey, message, withPriority(priority, 0), correlation);
+        } catch (Exception e) {
+            log.error("Erreur lors de l'envoi asynchrone du batch {} vers RabbitMQ", message.getBatchId(), e);
+            countConfirm("error");
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Attendre les confirms en attente avant l'arrêt de l'application
+     */
+    @PreDestroy
+    public void flush() {
+        if (outstanding.isEmpty()) {
+            return;
+        }
+        log.info("⏳ Attente de {} confirms avant l'arrêt", outstanding.size());
+        try {
+            CompletableFuture.allOf(outstanding.toArray(CompletableFuture[]::new))
+                    .get(flushTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("⚠️ {} publications non confirmées à l'arrêt", outstanding.size());
+        }
+    }
 
     /**
      * Envoyer un message de synchronisation dans la queue
@@ -21,12 +145,13 @@ public class RabbitMQProducer {
         try {
             log.info("Envoi du batch {} vers RabbitMQ avec {} pointages", 
                     message.getBatchId(), 
-                    message.getPointages().size());
+                    countPointages(message));
             
             rabbitTemplate.convertAndSend(
                     RabbitConfig.POINTAGE_EXCHANGE,
-                    RabbitConfig.POINTAGE_ROUTING_KEY,
-                    message
+                    pointageShards.routingKey(message.getEmail()),
+                    message,
+                    withPriority(priorityPolicy.score(message), 0)
             );
             
             log.info("Batch {} envoyé avec succès à RabbitMQ", message.getBatchId());
@@ -39,27 +164,46 @@ public class RabbitMQProducer {
     }
 
     /**
-     * Envoyer un message avec priorité
+     * Envoyer un message dans le palier de retry différé correspondant au délai
+     * Le message revient dans la queue de son shard à l'expiration du TTL
      */
-    public void sendSyncMessageWithPriority(SyncMessageDto message, int priority) {
+    public void sendSyncMessageDelayed(SyncMessageDto message, long delayMs) {
         try {
-            log.info("Envoi du batch {} vers RabbitMQ avec priorité {}", 
-                    message.getBatchId(), priority);
-            
+            log.info("Envoi du batch {} vers le palier de retry {}ms (tentative {})",
+                    message.getBatchId(), delayMs, message.getRetryCount());
+
             rabbitTemplate.convertAndSend(
-                    RabbitConfig.POINTAGE_EXCHANGE,
-                    RabbitConfig.POINTAGE_ROUTING_KEY,
+                    RabbitConfig.retryExchange(delayMs),
+                    pointageShards.routingKey(message.getEmail()), // Conservée au retour dans la queue principale
                     message,
-                    m -> {
-                        m.getMessageProperties().setPriority(priority);
-                        return m;
-                    }
+                    withPriority(priorityPolicy.score(message), delayMs) // Propriétés conservées par le dead-lettering
             );
-            
+
         } catch (Exception e) {
-            log.error("Erreur lors de l'envoi prioritaire du batch {}", 
+            log.error("Erreur lors de l'envoi du batch {} vers le palier de retry",
                     message.getBatchId(), e);
-            throw new RuntimeException("Impossible d'envoyer le message prioritaire", e);
+            throw new RuntimeException("Impossible d'envoyer le message en retry différé", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Priorité du message et horodatage de mise à disposition (métriques d'attente en queue)
+     */
+    private static MessagePostProcessor withPriority(int priority, long delayMs) {
+        return m -> {
+            QueueWaitMetrics.stamp(m.getMessageProperties(), priority, delayMs);
+            return m;
+        };
+    }
+
+    private void countConfirm(String result) {
+        meterRegistry.counter("sync.publisher.confirms", "result", result).increment();
+    }
+
+    private static int countPointages(SyncMessageDto message) {
+        List<?> pointages = message.getTypePointage() == TypePointageSync.TERRAIN
+                ? message.getPointagesTerrain()
+                : message.getPointages();
+        return pointages != null ? pointages.size() : 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.config.RabbitConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expose le nombre de messages en attente dans chaque palier de retry différé
+ * Les profondeurs sont relevées périodiquement pour ne pas interroger le broker à chaque scrape
+ */
+@Component
+@Slf4j
+public class RetryQueueMetrics {
+
+    private final AmqpAdmin amqpAdmin;
+    private final Map<Long, AtomicLong> depths = new LinkedHashMap<>();
+
+    public RetryQueueMetrics(AmqpAdmin amqpAdmin, MeterRegistry meterRegistry) {
+        this.amqpAdmin = amqpAdmin;
+        for (Long delayMs : RabbitConfig.RETRY_DELAYS_MS) {
+            AtomicLong depth = new AtomicLong();
+            depths.put(delayMs, depth);
+            Gauge.builder("sync.retry.queue.messages", depth, AtomicLong::get)
+                    .description("Messages en attente dans le palier de retry différé")
+                    .tag("delay", delayMs + "ms")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Relever la profondeur des queues de retry
+     */
+    @Scheduled(fixedDelayString = "${sync.retry.metrics-refresh-ms:10000}")
+    public void refresh() {
+        depths.forEach((delayMs, depth) -> {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(RabbitConfig.retryQueue(delayMs));
+                depth.set(info != null ? info.getMessageCount() : 0);
+            } catch (Exception e) {
+                log.debug("Impossible de lire la profondeur du palier {}ms: {}", delayMs, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncBatch;
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.data.repository.SyncBatchRepository;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reprise des batchs bloqués en IN_PROGRESS ou RETRY (consumer arrêté en plein appel,
+ * message perdu ou expiré)
+ * Les batchs sont verrouillés par pages avec SKIP LOCKED: toutes les instances peuvent exécuter
+ * le reaper. Un batch dont le payload est encore dans le stockage claim-check (gros batch ou copie
+ * de reprise) est republié via l'outbox tant que son budget de relances n'est pas épuisé;
+ * sinon il est finalisé en échec
+ */
+@Component
+@Slf4j
+public class StaleBatchReaper {
+
+    private final SyncBatchRepository syncBatchRepository;
+    private final OutboxService outboxService;
+    private final ClaimCheckService claimCheckService;
+    private final BatchResultsStore batchResultsStore;
+    private final PointageDedupIndex dedupIndex;
+    private final SyncStatsService syncStatsService;
+    private final SyncStatusCache syncStatusCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer reapedAge;
+
+    @Value("${sync.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.reaper.stale-after:PT2H}")
+    private Duration staleAfter;
+
+    @Value("${sync.reaper.page-size:20}")
+    private int pageSize;
+
+    @Value("${sync.reaper.max-pages:50}")
+    private int maxPages;
+
+    @Value("${sync.reaper.max-attempts:2}")
+    private int maxAttempts;
+
+    public StaleBatchReaper(SyncBatchRepository syncBatchRepository,
+                            OutboxService outboxService,
+                            ClaimCheckService claimCheckService,
+                            BatchResultsStore batchResultsStore,
+                            PointageDedupIndex dedupIndex,
+                            SyncStatsService syncStatsService,
+                            SyncStatusCache syncStatusCache,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry) {
+        this.syncBatchRepository = syncBatchRepository;
+        this.outboxService = outboxService;
+        this.claimCheckService = claimCheckService;
+        this.batchResultsStore = batchResultsStore;
+        this.dedupIndex = dedupIndex;
+        this.syncStatsService = syncStatsService;
+        this.syncStatusCache = syncStatusCache;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.reapedAge = Timer.builder("sync.reaper.batch.age")
+                .description("Temps écoulé depuis la dernière transition des batchs repris")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.reaper.interval-ms:60000}")
+    public void reap() {
+        if (!enabled) {
+            return;
+        }
+        int total = 0;
+        for (int page = 0; page < maxPages; page++) {
+            // Une transaction par page: les verrous sont tenus le temps de traiter quelques batchs
+            Integer reaped = transactionTemplate.execute(status -> reapPage());
+            int count = reaped != null ? reaped : 0;
+            total += count;
+            if (count < pageSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.warn("⏰ {} batchs bloqués repris", total);
+        }
+    }
+
+    private int reapPage() {
+        LocalDateTime now = LocalDateTime.now();
+        List<SyncBatch> stale = syncBatchRepository.lockStaleBatches(now.minus(staleAfter), pageSize);
+        for (SyncBatch batch : stale) {
+            LocalDateTime lastTransition = batch.getUpdatedAt() != null ? batch.getUpdatedAt() : batch.getCreatedAt();
+            reapedAge.record(Duration.between(lastTransition, now));
+
+            Optional<SyncMessageDto> payload = claimCheckService.load(batch.getBatchId());
+            int attempts = batch.getAttempts() != null ? batch.getAttempts() : 0;
+            if (payload.isPresent() && attempts < maxAttempts) {
+                requeue(batch, payload.get(), attempts + 1);
+            } else {
+                fail(batch, payload);
+            }
+        }
+        return stale.size();
+    }
+
+    /**
+     * Republier le batch via l'outbox (le consumer recharge les pointages depuis le claim-check)
+     */
+    private void requeue(SyncBatch batch, SyncMessageDto payload, int attempt) {
+        log.warn("⏰ Batch {} bloqué en {} depuis {}: relance {}/{}",
+                 batch.getBatchId(), batch.getStatus(), batch.getUpdatedAt(), attempt, maxAttempts);
+        SyncStatus previous = batch.getStatus();
+
+        batch.setStatus(SyncStatus.PENDING);
+        batch.setAttempts(attempt);
+        batch.setErrorMessage("Relancé après blocage en " + previous);
+        syncBatchRepository.save(batch);
+        syncStatusCache.publish(batch);
+
+        outboxService.append(SyncMessageDto.builder()
+                .batchId(batch.getBatchId())
+                .email(batch.getEmail())
+                .typePointage(TypePointageSync.valueOf(batch.getTypePointage()))
+                .privileges(payload.getPrivileges())
+                .payloadRef(batch.getBatchId())
+                .createdAt(batch.getCreatedAt())
+                .retryCount(0)
+                .build());
+        meterRegistry.counter("sync.reaper.reaped", "status", previous.name(), "action", "requeued").increment();
+    }
+
+    /**
+     * Finaliser le batch en échec (ou échec partiel si des chunks avaient abouti)
+     */
+    private void fail(SyncBatch batch, Optional<SyncMessageDto> payload) {
+        log.error("⏰ Batch {} bloqué en {} depuis {}: échec définitif ({})",
+                  batch.getBatchId(), batch.getStatus(), batch.getUpdatedAt(),
+                  payload.isPresent() ? "relances épuisées" : "pointages non disponibles");
+        SyncStatus previous = batch.getStatus();
+
+        List<PointageBatchDto> partialResults = batchResultsStore.load(batch.getBatchId());
+        if (!partialResults.isEmpty()) {
+            long successCount = partialResults.stream()
+                    .filter(r -> "SUCCES".equals(r.getStatut()))
+                    .count();
+            batch.setSuccessCount((int) successCount);
+            batch.setFailureCount(batch.getTotalPointages() - (int) successCount);
+            batch.setStatus(SyncStatus.PARTIAL_FAILURE);
+        } else {
+            batch.setStatus(SyncStatus.FAILED);
+        }
+        batch.setErrorMessage("Batch bloqué en " + previous + ", abandonné par le reaper");
+        batch.setCompletedAt(LocalDateTime.now());
+        syncBatchRepository.save(batch);
+        syncStatsService.recordTerminal(batch.getBatchId());
+        syncStatusCache.publish(batch);
+        if (!partialResults.isEmpty()) {
+            batchResultsStore.save(batch, partialResults);
+        }
+
+        // Les pointages non synchronisés doivent pouvoir être renvoyés par l'appareil
+        if (payload.isPresent()) {
+            SyncMessageDto pointages = payload.get();
+            if (pointages.getTypePointage() == TypePointageSync.TERRAIN) {
+                dedupIndex.releaseTerrain(batch.getBatchId(), batch.getEmail(), pointages.getPointagesTerrain());
+            } else {
+                dedupIndex.releaseStandard(batch.getBatchId(), pointages.getPointages());
+            }
+        } else if (partialResults.isEmpty()) {
+            dedupIndex.releaseBatch(batch.getBatchId());
+        } else {
+            log.warn("Batch {}: pointages restants inconnus, empreintes conservées", batch.getBatchId());
+        }
+        // Payload conservé pour un réessai manuel, purgé après sync.claim-check.failed-retention
+        meterRegistry.counter("sync.reaper.reaped", "status", previous.name(), "action", "failed").increment();
+    }
+}
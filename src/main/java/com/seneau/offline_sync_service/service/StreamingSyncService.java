@@ -0,0 +1,182 @@
+package com.seneau.offline_sync_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import com.seneau.offline_sync_service.web.dto.StreamSyncResponseDto;
+import com.seneau.offline_sync_service.web.dto.SyncResponseDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Ingestion en streaming des uploads NDJSON (un pointage JSON par ligne)
+ * Chaque ligne est validée à la lecture, les pointages valides sont publiés
+ * par chunks bornés: la mémoire consommée ne dépend pas de la taille de l'upload.
+ * Une ligne trop longue, null ou qui n'est pas un objet JSON est rejetée seule
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingSyncService {
+
+    private final SyncService syncService;
+    private final ValidationService validationService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sync.stream.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${sync.stream.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${sync.stream.max-line-length:8192}")
+    private int maxLineLength;
+
+    /**
+     * Ingérer un flux NDJSON de pointages STANDARDS
+     */
+    public StreamSyncResponseDto ingestStandard(String email, InputStream body) throws IOException {
+        log.info("📥 Ingestion NDJSON STANDARD pour {}", email);
+        return ingest(body, PointageOfflineDto.class,
+                validationService::validatePointageStandard,
+                chunk -> syncService.enqueueStandard(UUID.randomUUID().toString(), email, chunk, null));
+    }
+
+    /**
+     * Ingérer un flux NDJSON de pointages TERRAIN
+     */
+    public StreamSyncResponseDto ingestTerrain(String email, InputStream body, List<String> privileges)
+            throws IOException {
+        log.info("📥 Ingestion NDJSON TERRAIN pour {}", email);
+        return ingest(body, PointageTerrainOfflineDto.class,
+                validationService::validatePointageTerrain,
+                chunk -> syncService.enqueueTerrain(UUID.randomUUID().toString(), email, chunk, privileges, null));
+    }
+
+    private <T> StreamSyncResponseDto ingest(InputStream body, Class<T> type,
+                                             BiFunction<T, Integer, List<String>> validator,
+                                             Function<List<T>, SyncResponseDto> enqueue) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        IngestState state = new IngestState();
+        List<T> chunk = new ArrayList<>(chunkSize);
+
+        try (Reader input = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+            BoundedLineReader lines = new BoundedLineReader(input, maxLineLength);
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (lines.isTruncated()) {
+                    state.reject(1, List.of(String.format("Ligne %d: ligne trop longue (%d caractères max)",
+                                                          lineNumber, maxLineLength)));
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                T pointage;
+                List<String> lineErrors;
+                try {
+                    // "null" est lu comme null; un tableau ou un scalaire lève une MismatchedInputException
+                    pointage = reader.readValue(line);
+                    lineErrors = pointage != null
+                            ? validator.apply(pointage, lineNumber)
+                            : List.of(String.format("Ligne %d: JSON invalide", lineNumber));
+                } catch (JsonProcessingException e) {
+                    pointage = null;
+                    lineErrors = List.of(String.format("Ligne %d: JSON invalide", lineNumber));
+                }
+
+                if (!lineErrors.isEmpty()) {
+                    state.reject(1, lineErrors);
+                    continue;
+                }
+
+                chunk.add(pointage);
+                state.accepted++;
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, enqueue, state);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            flush(chunk, enqueue, state);
+        }
+        if (state.accepted == 0 && state.rejected == 0) {
+            state.reject(0, List.of("La liste des pointages est vide"));
+        }
+
+        log.info("✅ Ingestion NDJSON terminée: {} acceptés, {} rejetés, {} doublons, {} batchs",
+                 state.accepted, state.rejected, state.duplicates, state.batchIds.size());
+
+        return StreamSyncResponseDto.builder()
+                .batchIds(state.batchIds)
+                .totalLines(state.accepted + state.rejected)
+                .acceptedCount(state.accepted)
+                .rejectedCount(state.rejected)
+                .duplicatesSuppressed(state.duplicates)
+                .validationErrors(state.errors)
+                .validationErrorsTruncated(state.truncated)
+                .message(String.format("%d batchs envoyés à la queue de traitement", state.batchIds.size()))
+                .build();
+    }
+
+    /**
+     * Publier un chunk de pointages validés
+     */
+    private <T> void flush(List<T> chunk, Function<List<T>, SyncResponseDto> enqueue, IngestState state) {
+        SyncResponseDto response = enqueue.apply(chunk);
+        int duplicates = response.getDuplicatesSuppressed() != null ? response.getDuplicatesSuppressed() : 0;
+        state.duplicates += duplicates;
+        if (Boolean.TRUE.equals(response.getSentToQueue())) {
+            state.batchIds.add(response.getBatchId());
+        } else if (duplicates == chunk.size()) {
+            // Chunk entièrement déjà synchronisé: rien à publier, ce n'est pas une erreur
+            log.debug("Chunk de {} pointages déjà synchronisés", duplicates);
+        } else {
+            state.accepted -= chunk.size();
+            state.reject(chunk.size(), List.of(String.format("Batch %s: %s", response.getBatchId(), response.getMessage())));
+        }
+    }
+
+    /**
+     * Compteurs d'une ingestion; la liste d'erreurs est bornée
+     */
+    private class IngestState {
+        private final List<String> batchIds = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private int accepted;
+        private int rejected;
+        private int duplicates;
+        private boolean truncated;
+
+        private void reject(int count, List<String> lineErrors) {
+            rejected += count;
+            for (String error : lineErrors) {
+                if (errors.size() >= maxReportedErrors) {
+                    truncated = true;
+                    return;
+                }
+                errors.add(error);
+            }
+        }
+    }
+}
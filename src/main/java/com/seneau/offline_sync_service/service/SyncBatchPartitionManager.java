@@ -0,0 +1,141 @@
+package com.seneau.offline_sync_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Partitions mensuelles de sync_batches (partitionnement RANGE sur created_at)
+ * Crée les partitions des mois à venir et supprime d'un bloc les partitions sorties
+ * de la rétention (DETACH puis DROP), au lieu de supprimer les batchs ligne par ligne.
+ * Les lignes rattachées aux batchs de la partition (résultats, échecs, payloads, empreintes)
+ * sont supprimées juste avant, sur la même frontière mensuelle.
+ * Sans effet tant que la table n'a pas été migrée en table partitionnée (voir README)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncBatchPartitionManager {
+
+    private static final String TABLE = "sync_batches";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    // Tables rattachées aux batchs par batch_id (sans clé étrangère vers la table partitionnée)
+    private static final List<String> RELATED_TABLES =
+            List.of("sync_batch_results", "sync_batch_failures", "sync_payloads", "pointage_fingerprints");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sync.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sync.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${sync.partitioning.retention-months:12}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    /**
+     * Créer les partitions à venir puis supprimer les partitions expirées
+     */
+    @Scheduled(cron = "${sync.partitioning.cron:0 0 2 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        if (!isPartitioned()) {
+            log.warn("⚠️ {} n'est pas une table partitionnée, maintenance des partitions ignorée", TABLE);
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        dropExpired(current.minusMonths(retentionMonths));
+    }
+
+    private boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "WHERE c.relname = ? AND pg_table_is_visible(c.oid)",
+                Integer.class, TABLE);
+        return count != null && count > 0;
+    }
+
+    private void createPartition(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) +
+                " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+    }
+
+    /**
+     * Supprimer les partitions entièrement antérieures au mois {@code oldestKept}
+     */
+    private void dropExpired(YearMonth oldestKept) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? AND pg_table_is_visible(p.oid) ORDER BY c.relname",
+                String.class, TABLE);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue; // Partition par défaut ou créée à la main
+            }
+            YearMonth month = YearMonth.parse(matcher.group(1), SUFFIX);
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            // Avant le DETACH: en cas d'échec, la partition reste et la purge reprend la nuit suivante
+            purgeRelated(partition);
+            // CONCURRENTLY: les consumers ne sont pas bloqués par un verrou exclusif sur la table mère
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition + " CONCURRENTLY");
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            meterRegistry.counter("sync.partitions.dropped").increment();
+            log.info("🧹 Partition {} ({}) supprimée", partition, month);
+        }
+    }
+
+    /**
+     * Supprimer les lignes des tables rattachées aux batchs de la partition
+     */
+    private void purgeRelated(String partition) {
+        for (String table : RELATED_TABLES) {
+            int deleted = jdbcTemplate.update("DELETE FROM " + table + " t USING " + partition + " b " +
+                                              "WHERE t.batch_id = b.batch_id");
+            meterRegistry.counter("sync.partitions.purged.rows", "table", table).increment(deleted);
+            log.info("🧹 {} lignes de {} supprimées avec la partition {}", deleted, table, partition);
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_p" + month.format(SUFFIX);
+    }
+}
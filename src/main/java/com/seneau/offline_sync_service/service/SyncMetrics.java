@@ -0,0 +1,130 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Durées des étapes d'un batch, de la réception HTTP à l'enregistrement par le service de pointage
+ * sync.stage.duration{stage,type,outcome}: validation, dedup, insert, outbox, publish (confirm du broker),
+ * resolve, downstream, update; outcome vaut success ou error (valid/invalid pour la validation)
+ * sync.batch.completed{type,status}: batchs arrivés à un statut final dans le consumer
+ * sync.batch.queue.wait{type,retried}: création du batch → prise en charge par le consumer
+ * sync.pointage.persisted.lag{type,statut}: heure du pointage → réponse du service de pointage
+ */
+@Component
+public class SyncMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+
+    private static final String STATUT_SUCCES = "SUCCES";
+
+    private final MeterRegistry meterRegistry;
+
+    public SyncMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void record(Timer.Sample sample, String stage, TypePointageSync type, String outcome) {
+        sample.stop(Timer.builder("sync.stage.duration")
+                .description("Durée d'une étape du traitement d'un batch")
+                .tag("stage", stage)
+                .tag("type", String.valueOf(type))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Chronométrer une étape; l'issue est "error" si elle lève une exception
+     */
+    public <T> T time(String stage, TypePointageSync type, Supplier<T> action) {
+        Timer.Sample sample = start();
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = action.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            record(sample, stage, type, outcome);
+        }
+    }
+
+    public void time(String stage, TypePointageSync type, Runnable action) {
+        time(stage, type, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Compter un batch finalisé par son statut (SUCCESS, PARTIAL_FAILURE...)
+     */
+    public void recordCompleted(TypePointageSync type, SyncStatus status) {
+        meterRegistry.counter("sync.batch.completed",
+                "type", String.valueOf(type), "status", status.name().toLowerCase()).increment();
+    }
+
+    /**
+     * Attente d'un batch depuis sa création (outbox, queue et paliers de retry compris)
+     */
+    public void recordQueueWait(SyncMessageDto message) {
+        if (message.getCreatedAt() == null) {
+            return;
+        }
+        boolean retried = message.getRetryCount() != null && message.getRetryCount() > 0;
+        Timer.builder("sync.batch.queue.wait")
+                .description("Délai entre la création du batch et sa prise en charge par le consumer")
+                .tag("type", String.valueOf(message.getTypePointage()))
+                .tag("retried", String.valueOf(retried))
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofHours(2))
+                .register(meterRegistry)
+                .record(durationSince(message.getCreatedAt()));
+    }
+
+    /**
+     * Délai entre l'heure de chaque pointage et sa prise en compte par le service de pointage
+     * Les résultats sont rattachés aux pointages par position (un résultat par pointage, dans l'ordre d'envoi)
+     */
+    public void recordPersisted(TypePointageSync type, List<LocalDateTime> heures, List<PointageBatchDto> results) {
+        boolean aligned = results != null && results.size() == heures.size();
+        Timer succes = persistedLag(type, aligned ? "succes" : "inconnu");
+        Timer echec = aligned ? persistedLag(type, "echec") : succes;
+        for (int i = 0; i < heures.size(); i++) {
+            if (heures.get(i) != null) {
+                Timer timer = !aligned || STATUT_SUCCES.equals(results.get(i).getStatut()) ? succes : echec;
+                timer.record(durationSince(heures.get(i)));
+            }
+        }
+    }
+
+    private Timer persistedLag(TypePointageSync type, String statut) {
+        return Timer.builder("sync.pointage.persisted.lag")
+                .description("Délai entre l'heure du pointage et son enregistrement par le service de pointage")
+                .tag("type", String.valueOf(type))
+                .tag("statut", statut)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofDays(7))
+                .register(meterRegistry);
+    }
+
+    private static Duration durationSince(LocalDateTime from) {
+        Duration elapsed = Duration.between(from, LocalDateTime.now());
+        return elapsed.isNegative() ? Duration.ZERO : elapsed;
+    }
+}
@@ -3,14 +3,22 @@ package com.seneau.offline_sync_service.service;
 import com.seneau.offline_sync_service.data.model.*;
 import com.seneau.offline_sync_service.data.repository.SyncBatchRepository;
 import com.seneau.offline_sync_service.web.dto.*;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import com.seneau.offline_sync_service.web.exception.ValidationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -18,31 +26,73 @@ import java.util.UUID;
 @Slf4j
 public class SyncService {
 
-    private final RabbitMQProducer rabbitMQProducer;
     private final SyncBatchRepository syncBatchRepository;
     private final ValidationService validationService;
+    private final IdempotencyService idempotencyService;
+    private final PointageDedupIndex dedupIndex;
+    private final OutboxService outboxService;
+    private final ClaimCheckService claimCheckService;
+    private final SyncStatusCache syncStatusCache;
+    private final SyncStatsService syncStatsService;
+    private final SyncMetrics syncMetrics;
+
+    @Value("${sync.status-bulk.max-ids:500}")
+    private int bulkStatusMaxIds;
+
+    @Value("${sync.status-bulk.chunk-size:100}")
+    private int bulkStatusChunkSize;
 
     /**
      * Synchroniser des pointages STANDARDS (avec matricule)
      */
     @Transactional
-    public SyncResponseDto syncPointagesStandard(String email, PointageBatchRequestDto request) {
+    public SyncResponseDto syncPointagesStandard(String email, PointageBatchRequestDto request, String idempotencyKey) {
+        // Renvoi d'une soumission déjà traitée: on rejoue la réponse d'origine
+        String key = idempotencyService.normalize(idempotencyKey);
+        Optional<SyncResponseDto> previous = idempotencyService.findPrevious(email, key);
+        if (previous.isPresent()) {
+            return previous.get();
+        }
+
         String batchId = UUID.randomUUID().toString();
 
         log.info("📦 Création batch STANDARD {} avec {} pointages pour {}",
                  batchId, request.getPointages().size(), email);
 
         // Validation des données
+        Timer.Sample validation = syncMetrics.start();
         List<String> validationErrors = validationService.validateBatchStandard(request);
+        syncMetrics.record(validation, "validation", TypePointageSync.STANDARD,
+                validationErrors.isEmpty() ? "valid" : "invalid");
         if (!validationErrors.isEmpty()) {
             log.warn("⚠️ Erreurs de validation pour le batch {}: {}", batchId, validationErrors);
             return createErrorResponse(batchId, validationErrors);
         }
 
+        return enqueueStandard(batchId, email, request.getPointages(), key);
+    }
+
+    /**
+     * Créer un batch STANDARD et l'envoyer à la queue
+     * Les pointages doivent avoir été validés au préalable
+     */
+    @Transactional
+    public SyncResponseDto enqueueStandard(String batchId, String email, List<PointageOfflineDto> pointages,
+                                           String idempotencyKey) {
+        List<PointageOfflineDto> kept = List.of();
         try {
+            // Écarter les pointages déjà synchronisés par un batch précédent
+            PointageDedupIndex.DedupResult<PointageOfflineDto> dedup = syncMetrics.time("dedup", TypePointageSync.STANDARD,
+                    () -> dedupIndex.reserveStandard(batchId, pointages));
+            kept = dedup.kept();
+            if (kept.isEmpty()) {
+                return createDuplicateResponse(pointages.size());
+            }
+
             // Créer le batch en base de données
-            SyncBatch batch = createBatch(batchId, email, request.getPointages().size(), TypePointageSync.STANDARD);
-            syncBatchRepository.save(batch);
+            SyncBatch batch = createBatch(batchId, email, kept.size(), TypePointageSync.STANDARD);
+            batch.setIdempotencyKey(idempotencyKey);
+            syncMetrics.time("insert", TypePointageSync.STANDARD, () -> syncBatchRepository.save(batch));
             log.info("✅ Batch {} créé en base avec statut PENDING", batchId);
 
             // Créer le message pour RabbitMQ
@@ -50,29 +100,33 @@ public class SyncService {
                     .batchId(batchId)
                     .email(email)
                     .typePointage(TypePointageSync.STANDARD)
-                    .pointages(request.getPointages())
+                    .pointages(kept)
                     .createdAt(LocalDateTime.now())
                     .retryCount(0)
                     .maxRetries(3)
                     .build();
 
-            // Envoyer à RabbitMQ
-            rabbitMQProducer.sendSyncMessage(message);
-            log.info("🐰 Batch {} envoyé à RabbitMQ avec succès", batchId);
+            // Publication différée par le relais, dans la même transaction que le batch
+            syncMetrics.time("outbox", message.getTypePointage(), () -> outboxService.append(message));
+            log.info("📮 Batch {} ajouté à l'outbox", batchId);
 
-            return SyncResponseDto.builder()
+            SyncResponseDto response = SyncResponseDto.builder()
                     .batchId(batchId)
                     .status(SyncStatus.PENDING.name())
-                    .totalPointages(request.getPointages().size())
+                    .totalPointages(kept.size())
                     .successCount(0)
                     .failureCount(0)
                     .message("Batch STANDARD envoyé à la queue de traitement")
                     .sentToQueue(true)
+                    .duplicatesSuppressed(dedup.suppressed())
                     .build();
+            idempotencyService.remember(email, idempotencyKey, response);
+            return response;
 
         } catch (Exception e) {
             log.error("❌ Erreur lors de la création du batch {}", batchId, e);
-            return handleBatchCreationError(batchId, request.getPointages().size(), e);
+            dedupIndex.releaseStandard(batchId, kept);
+            return handleBatchCreationError(batchId, pointages.size(), e);
         }
     }
 
@@ -80,23 +134,54 @@ public class SyncService {
      * Synchroniser des pointages TERRAIN (avec GPS, sans matricule)
      */
     @Transactional
-    public SyncResponseDto syncPointagesTerrain(String email, PointageTerrainBatchRequestDto request, List<String> privileges) {
+    public SyncResponseDto syncPointagesTerrain(String email, PointageTerrainBatchRequestDto request, List<String> privileges,
+                                                String idempotencyKey) {
+        // Renvoi d'une soumission déjà traitée: on rejoue la réponse d'origine
+        String key = idempotencyService.normalize(idempotencyKey);
+        Optional<SyncResponseDto> previous = idempotencyService.findPrevious(email, key);
+        if (previous.isPresent()) {
+            return previous.get();
+        }
+
         String batchId = UUID.randomUUID().toString();
 
         log.info("📦 Création batch TERRAIN {} avec {} pointages pour {}",
                  batchId, request.getPointages().size(), email);
 
         // Validation des données
+        Timer.Sample validation = syncMetrics.start();
         List<String> validationErrors = validationService.validateBatchTerrain(request);
+        syncMetrics.record(validation, "validation", TypePointageSync.TERRAIN,
+                validationErrors.isEmpty() ? "valid" : "invalid");
         if (!validationErrors.isEmpty()) {
             log.warn("⚠️ Erreurs de validation pour le batch {}: {}", batchId, validationErrors);
             return createErrorResponse(batchId, validationErrors);
         }
 
+        return enqueueTerrain(batchId, email, request.getPointages(), privileges, key);
+    }
+
+    /**
+     * Créer un batch TERRAIN et l'envoyer à la queue
+     * Les pointages doivent avoir été validés au préalable
+     */
+    @Transactional
+    public SyncResponseDto enqueueTerrain(String batchId, String email, List<PointageTerrainOfflineDto> pointages,
+                                          List<String> privileges, String idempotencyKey) {
+        List<PointageTerrainOfflineDto> kept = List.of();
         try {
+            // Écarter les pointages déjà synchronisés par un batch précédent
+            PointageDedupIndex.DedupResult<PointageTerrainOfflineDto> dedup = syncMetrics.time("dedup", TypePointageSync.TERRAIN,
+                    () -> dedupIndex.reserveTerrain(batchId, email, pointages));
+            kept = dedup.kept();
+            if (kept.isEmpty()) {
+                return createDuplicateResponse(pointages.size());
+            }
+
             // Créer le batch en base de données
-            SyncBatch batch = createBatch(batchId, email, request.getPointages().size(), TypePointageSync.TERRAIN);
-            syncBatchRepository.save(batch);
+            SyncBatch batch = createBatch(batchId, email, kept.size(), TypePointageSync.TERRAIN);
+            batch.setIdempotencyKey(idempotencyKey);
+            syncMetrics.time("insert", TypePointageSync.TERRAIN, () -> syncBatchRepository.save(batch));
             log.info("✅ Batch {} créé en base avec statut PENDING", batchId);
 
             // Créer le message pour RabbitMQ
@@ -104,30 +189,34 @@ public class SyncService {
                     .batchId(batchId)
                     .email(email)
                     .typePointage(TypePointageSync.TERRAIN)
-                    .pointagesTerrain(request.getPointages())
+                    .pointagesTerrain(kept)
                     .privileges(privileges)
                     .createdAt(LocalDateTime.now())
                     .retryCount(0)
                     .maxRetries(3)
                     .build();
 
-            // Envoyer à RabbitMQ
-            rabbitMQProducer.sendSyncMessage(message);
-            log.info("🐰 Batch {} envoyé à RabbitMQ avec succès", batchId);
+            // Publication différée par le relais, dans la même transaction que le batch
+            syncMetrics.time("outbox", message.getTypePointage(), () -> outboxService.append(message));
+            log.info("📮 Batch {} ajouté à l'outbox", batchId);
 
-            return SyncResponseDto.builder()
+            SyncResponseDto response = SyncResponseDto.builder()
                     .batchId(batchId)
                     .status(SyncStatus.PENDING.name())
-                    .totalPointages(request.getPointages().size())
+                    .totalPointages(kept.size())
                     .successCount(0)
                     .failureCount(0)
                     .message("Batch TERRAIN envoyé à la queue de traitement")
                     .sentToQueue(true)
+                    .duplicatesSuppressed(dedup.suppressed())
                     .build();
+            idempotencyService.remember(email, idempotencyKey, response);
+            return response;
 
         } catch (Exception e) {
             log.error("❌ Erreur lors de la création du batch {}", batchId, e);
-            return handleBatchCreationError(batchId, request.getPointages().size(), e);
+            dedupIndex.releaseTerrain(batchId, email, kept);
+            return handleBatchCreationError(batchId, pointages.size(), e);
         }
     }
 
@@ -135,42 +224,44 @@ public class SyncService {
      * Récupérer le statut d'un batch
      */
     public SyncStatusDto getSyncStatus(String batchId) {
-        SyncBatch batch = syncBatchRepository.findByBatchId(batchId)
-                .orElseThrow(() -> new RuntimeException("Batch non trouvé: " + batchId));
-
-        return SyncStatusDto.builder()
-                .batchId(batch.getBatchId())
-                .status(batch.getStatus().name())
-                .totalPointages(batch.getTotalPointages())
-                .successCount(batch.getSuccessCount())
-                .failureCount(batch.getFailureCount())
-                .createdAt(batch.getCreatedAt())
-                .completedAt(batch.getCompletedAt())
-                .errorMessage(batch.getErrorMessage())
-                .build();
+        return syncStatusCache.get(batchId, () -> syncBatchRepository.findByBatchId(batchId)
+                .map(SyncStatusCache::toDto)
+                .orElseThrow(() -> new RuntimeException("Batch non trouvé: " + batchId)));
     }
 
     /**
-     * Récupérer tous les batchs en échec pour un utilisateur
+     * Récupérer le statut de plusieurs batchs en un aller-retour
+     * Les identifiants absents du cache sont résolus par requêtes IN de taille bornée
      */
-    public List<PointageBatchDto> getFailedSyncs(String email) {
-        List<SyncBatch> failedBatches = syncBatchRepository
-                .findByEmailAndStatusIn(email,
-                                        List.of(SyncStatus.FAILED, SyncStatus.PARTIAL_FAILURE));
-
-        return failedBatches.stream()
-                .flatMap(batch -> {
-                    if (batch.getResults() != null) {
-                        return batch.getResults().stream()
-                                .filter(result -> "ECHEC".equals(result.getStatut()));
-                    }
-                    return java.util.stream.Stream.empty();
-                })
-                .toList();
+    public BulkStatusResponseDto getSyncStatuses(List<String> batchIds) {
+        List<String> distinct = batchIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.size() > bulkStatusMaxIds) {
+            throw new ValidationException("Trop de batchIds dans la requête",
+                    List.of("Maximum " + bulkStatusMaxIds + " batchIds par requête, reçu " + distinct.size()));
+        }
+
+        Map<String, SyncStatusDto> found = syncStatusCache.getAll(distinct, this::loadStatuses);
+        return BulkStatusResponseDto.builder()
+                .statuses(distinct.stream().map(found::get).filter(Objects::nonNull).toList())
+                .notFound(distinct.stream().filter(batchId -> !found.containsKey(batchId)).toList())
+                .build();
+    }
+
+    private Map<String, SyncStatusDto> loadStatuses(Set<String> batchIds) {
+        List<String> ids = List.copyOf(batchIds);
+        Map<String, SyncStatusDto> loaded = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += bulkStatusChunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + bulkStatusChunkSize, ids.size()));
+            syncBatchRepository.findByBatchIdIn(chunk)
+                    .forEach(view -> loaded.put(view.getBatchId(), SyncStatusCache.toDto(view)));
+        }
+        return loaded;
     }
 
     /**
      * Réessayer un batch échoué
+     * Les pointages non synchronisés sont relus depuis le stockage claim-check (conservés
+     * failed-retention après l'échec) et republiés via l'outbox sous le même batchId
      */
     @Transactional
     public SyncResponseDto retrySync(String batchId) {
@@ -183,22 +274,51 @@ public class SyncService {
             throw new RuntimeException("Le batch n'est pas en échec");
         }
 
+        SyncMessageDto stored = claimCheckService.load(batchId)
+                .orElseThrow(() -> new RuntimeException(
+                        "Pointages du batch " + batchId + " non disponibles, l'appareil doit les renvoyer"));
+
         log.info("🔄 Réessai du batch {}", batchId);
 
-        // Renvoyer le message à RabbitMQ
+        // Les empreintes ont été libérées à l'échec: écarter les pointages déjà renvoyés par l'appareil
+        TypePointageSync type = TypePointageSync.valueOf(batch.getTypePointage());
         SyncMessageDto message = SyncMessageDto.builder()
-                .batchId(UUID.randomUUID().toString()) // Nouveau batch ID
+                .batchId(batchId)
                 .email(batch.getEmail())
-                .typePointage(TypePointageSync.STANDARD) // À adapter selon le type du batch
+                .typePointage(type)
+                .privileges(stored.getPrivileges())
+                .createdAt(batch.getCreatedAt())
                 .retryCount(0)
                 .maxRetries(3)
                 .build();
+        int kept;
+        if (type == TypePointageSync.TERRAIN) {
+            List<PointageTerrainOfflineDto> pointages =
+                    dedupIndex.reserveTerrain(batchId, batch.getEmail(), stored.getPointagesTerrain()).kept();
+            message.setPointagesTerrain(pointages);
+            kept = pointages.size();
+        } else {
+            List<PointageOfflineDto> pointages = dedupIndex.reserveStandard(batchId, stored.getPointages()).kept();
+            message.setPointages(pointages);
+            kept = pointages.size();
+        }
+        if (kept == 0) {
+            throw new RuntimeException("Les pointages du batch " + batchId + " ont déjà été renvoyés");
+        }
 
-        rabbitMQProducer.sendSyncMessage(message);
+        batch.setStatus(SyncStatus.PENDING);
+        batch.setErrorMessage("Réessai manuel");
+        batch.setCompletedAt(null);
+        syncBatchRepository.save(batch);
+        syncStatusCache.publish(batch);
+
+        // Publication par le relais, dans la même transaction que le changement de statut
+        outboxService.append(message);
 
         return SyncResponseDto.builder()
-                .batchId(message.getBatchId())
+                .batchId(batchId)
                 .status(SyncStatus.PENDING.name())
+                .totalPointages(kept)
                 .message("Réessai lancé avec succès")
                 .sentToQueue(true)
                 .build();
@@ -231,6 +351,22 @@ public class SyncService {
                 .build();
     }
 
+    /**
+     * Réponse sans batchId: aucun batch n'est créé, le client n'a aucun statut à suivre
+     */
+    private SyncResponseDto createDuplicateResponse(int totalPointages) {
+        log.info("♻️ Les {} pointages ont déjà été synchronisés, aucun batch créé", totalPointages);
+        return SyncResponseDto.builder()
+                .status(SyncStatus.COMPLETED.name())
+                .totalPointages(0)
+                .successCount(0)
+                .failureCount(0)
+                .message("Tous les pointages ont déjà été synchronisés")
+                .sentToQueue(false)
+                .duplicatesSuppressed(totalPointages)
+                .build();
+    }
+
     private SyncResponseDto handleBatchCreationError(String batchId, int totalPointages, Exception e) {
         // Mettre à jour le batch en échec si existant
         syncBatchRepository.findByBatchId(batchId).ifPresent(batch -> {
@@ -238,6 +374,8 @@ public class SyncService {
             batch.setErrorMessage(e.getMessage());
             batch.setCompletedAt(LocalDateTime.now());
             syncBatchRepository.save(batch);
+            syncStatsService.recordTerminal(batchId);
+            syncStatusCache.publish(batch);
         });
 
         return SyncResponseDto.builder()
@@ -0,0 +1,110 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncStats;
+import com.seneau.offline_sync_service.data.repository.SyncStatsRepository;
+import com.seneau.offline_sync_service.web.dto.SyncStatsDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Statistiques de synchronisation par utilisateur
+ * Les agrégats (sync_stats) sont mis à jour à chaque batch finalisé: la lecture ne parcourt
+ * plus l'historique des batchs. La reconstruction recalcule tout depuis sync_batches
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncStatsService {
+
+    private static final long REBUILD_LOCK_KEY = 0x53594e4353544154L; // "SYNCSTAT"
+
+    private final SyncStatsRepository statsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Compter un batch qui vient d'atteindre un statut final (sans effet s'il est déjà compté)
+     * Exécuté dans la transaction de la transition quand elle existe
+     */
+    public void recordTerminal(String batchId) {
+        statsRepository.recordTerminal(batchId);
+    }
+
+    /**
+     * Statistiques d'un utilisateur, toutes catégories confondues et par type
+     */
+    @Transactional(readOnly = true)
+    public SyncStatsDto getStats(String email) {
+        List<SyncStats> rows = statsRepository.findByEmail(email);
+
+        long batches = 0;
+        long completed = 0;
+        long pointagesSynced = 0;
+        double failureRateSum = 0;
+        long failureRateCount = 0;
+        double durationSum = 0;
+        long durationCount = 0;
+        for (SyncStats row : rows) {
+            batches += row.getBatchCount();
+            completed += row.getCompletedCount();
+            pointagesSynced += row.getPointagesSynced();
+            failureRateSum += row.getFailureRateSum();
+            failureRateCount += row.getFailureRateCount();
+            durationSum += row.getDurationSecondsSum();
+            durationCount += row.getDurationCount();
+        }
+
+        return SyncStatsDto.builder()
+                .email(email)
+                .totalBatches(batches)
+                .successfulSyncs(completed)
+                .totalPointagesSynced(pointagesSynced)
+                .averageFailureRate(failureRateCount > 0 ? failureRateSum / failureRateCount : 0.0)
+                .averageDurationSeconds(durationCount > 0 ? durationSum / durationCount : null)
+                .byType(rows.stream()
+                        .map(row -> SyncStatsDto.TypeStats.builder()
+                                .typePointage(row.getTypePointage())
+                                .batchCount(row.getBatchCount())
+                                .successCount(row.getSuccessSum())
+                                .failureCount(row.getFailureSum())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Premier démarrage: construire les agrégats depuis l'historique existant
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (statsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recalculer tous les agrégats depuis l'historique des batchs
+     * Les batchs finalisés pendant la reconstruction sont comptés une seule fois: leur upsert
+     * attend la fin de la transaction de reconstruction
+     */
+    @Scheduled(cron = "${sync.stats.rebuild-cron:0 0 4 * * SUN}")
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!statsRepository.tryRebuildLock(REBUILD_LOCK_KEY)) {
+                log.info("Reconstruction des statistiques déjà en cours sur une autre instance");
+                return;
+            }
+            int marked = statsRepository.markAllTerminal();
+            statsRepository.deleteAllStats();
+            int rows = statsRepository.insertFromHistory();
+            log.info("📊 Statistiques reconstruites: {} agrégats ({} batchs historiques ajoutés)", rows, marked);
+        });
+    }
+}
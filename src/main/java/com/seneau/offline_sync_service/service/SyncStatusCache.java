@@ -0,0 +1,190 @@
+package com.seneau.offline_sync_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.seneau.offline_sync_service.config.RabbitConfig;
+import com.seneau.offline_sync_service.data.model.SyncBatch;
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.data.repository.SyncStatusView;
+import com.seneau.offline_sync_service.web.dto.SyncStatusDto;
+import com.seneau.offline_sync_service.web.dto.SyncStatusEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache local des statuts de batch, pour les clients qui interrogent le statut en boucle
+ * Chaque transition est diffusée après commit sur un fanout: toutes les instances
+ * (y compris l'émettrice) remplacent l'entrée qu'elles détiennent
+ */
+@Service
+@Slf4j
+public class SyncStatusCache {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<String, SyncStatusDto> statuses;
+    private final Counter dbQueriesAvoided;
+
+    public SyncStatusCache(RabbitTemplate rabbitTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           @Value("${sync.status-cache.size:10000}") long cacheSize,
+                           @Value("${sync.status-cache.ttl:PT5M}") Duration cacheTtl) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.eventPublisher = eventPublisher;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, statuses, "sync.status");
+        this.dbQueriesAvoided = Counter.builder("sync.status.db_queries_avoided")
+                .description("Lectures de statut servies par le cache sans requête en base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Lire un statut depuis le cache, ou le charger depuis la base
+     * Chargement atomique: un changement de statut reçu pendant la lecture en base attend
+     * la fin du chargement puis s'applique, au lieu d'être perdu et remplacé par la valeur lue
+     */
+    public SyncStatusDto get(String batchId, Supplier<SyncStatusDto> loader) {
+        boolean[] loaded = {false};
+        SyncStatusDto status = statuses.get(batchId, key -> {
+            loaded[0] = true;
+            return loader.get();
+        });
+        if (!loaded[0]) {
+            dbQueriesAvoided.increment();
+        }
+        return status;
+    }
+
+    /**
+     * Lire plusieurs statuts; les absents du cache sont chargés en un seul appel au loader
+     * Les batchs introuvables sont absents de la map renvoyée. Une valeur arrivée entre-temps
+     * est conservée sauf si le statut chargé est final
+     */
+    public Map<String, SyncStatusDto> getAll(Collection<String> batchIds,
+                                             Function<Set<String>, Map<String, SyncStatusDto>> loader) {
+        Map<String, SyncStatusDto> found = new HashMap<>(statuses.getAllPresent(batchIds));
+        dbQueriesAvoided.increment(found.size());
+
+        Set<String> missing = new LinkedHashSet<>(batchIds);
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            loader.apply(missing).forEach((batchId, loaded) -> found.put(batchId,
+                    statuses.asMap().merge(batchId, loaded, (current, fresh) -> isTerminal(fresh) ? fresh : current)));
+        }
+        return found;
+    }
+
+    public Optional<SyncStatusDto> getIfPresent(String batchId) {
+        return Optional.ofNullable(statuses.getIfPresent(batchId));
+    }
+
+    /**
+     * Diffuser le nouveau statut d'un batch une fois la transaction validée
+     */
+    public void publish(SyncBatch batch) {
+        SyncStatusEventDto event = SyncStatusEventDto.builder()
+                .batchId(batch.getBatchId())
+                .status(toDto(batch))
+                .build();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(event);
+                }
+            });
+        } else {
+            broadcast(event);
+        }
+    }
+
+    private void broadcast(SyncStatusEventDto event) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitConfig.STATUS_EVENTS_EXCHANGE, "", event);
+        } catch (Exception e) {
+            // Les autres instances se recalent à l'expiration du TTL
+            log.warn("Impossible de diffuser le statut du batch {}: {}", event.getBatchId(), e.getMessage());
+            apply(event);
+        }
+    }
+
+    /**
+     * Appliquer un changement de statut reçu (toutes instances)
+     */
+    @RabbitListener(queues = "#{statusEventsQueue.name}", concurrency = "1")
+    public void onStatusEvent(SyncStatusEventDto event) {
+        apply(event);
+    }
+
+    private void apply(SyncStatusEventDto event) {
+        // Un statut final n'est jamais écrasé par un statut intermédiaire arrivé en retard.
+        // Les statuts intermédiaires ne remplacent que les entrées déjà en cache; un statut final
+        // est toujours retenu, pour qu'un chargement concurrent (getAll) ne le masque pas
+        SyncStatusDto status = event.getStatus();
+        if (isTerminal(status)) {
+            statuses.asMap().merge(event.getBatchId(), status, (current, fresh) -> fresh);
+        } else {
+            statuses.asMap().computeIfPresent(event.getBatchId(), (batchId, current) ->
+                    isTerminal(current) ? current : status);
+        }
+        // Relais local pour les clients en attente du statut (SSE, long-poll)
+        eventPublisher.publishEvent(event);
+    }
+
+    static boolean isTerminal(SyncStatusDto status) {
+        return SyncStatus.valueOf(status.getStatus()).isTerminal();
+    }
+
+    public static SyncStatusDto toDto(SyncStatusView view) {
+        return SyncStatusDto.builder()
+                .batchId(view.getBatchId())
+                .status(view.getStatus().name())
+                .totalPointages(view.getTotalPointages())
+                .successCount(view.getSuccessCount())
+                .failureCount(view.getFailureCount())
+                .createdAt(view.getCreatedAt())
+                .completedAt(view.getCompletedAt())
+                .errorMessage(view.getErrorMessage())
+                .build();
+    }
+
+    /**
+     * Statut exposé d'un batch
+     */
+    public static SyncStatusDto toDto(SyncBatch batch) {
+        return SyncStatusDto.builder()
+                .batchId(batch.getBatchId())
+                .status(batch.getStatus().name())
+                .totalPointages(batch.getTotalPointages())
+                .successCount(batch.getSuccessCount())
+                .failureCount(batch.getFailureCount())
+                .createdAt(batch.getCreatedAt())
+                .completedAt(batch.getCompletedAt())
+                .errorMessage(batch.getErrorMessage())
+                .build();
+    }
+}
@@ -15,7 +15,7 @@ import java.util.List;
 @Slf4j
 public class ValidationService {
 
-    private static final int MAX_BATCH_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
     private static final int MAX_DAYS_OLD = 30;
 
     /**
@@ -69,7 +69,7 @@ public class ValidationService {
     /**
      * Valider un pointage STANDARD
      */
-    private List<String> validatePointageStandard(PointageOfflineDto pointage, int index) {
+    public List<String> validatePointageStandard(PointageOfflineDto pointage, int index) {
         List<String> errors = new ArrayList<>();
         String prefix = String.format("Pointage[%d]: ", index);
 
@@ -89,7 +89,7 @@ public class ValidationService {
     /**
      * Valider un pointage TERRAIN
      */
-    private List<String> validatePointageTerrain(PointageTerrainOfflineDto pointage, int index) {
+    public List<String> validatePointageTerrain(PointageTerrainOfflineDto pointage, int index) {
         List<String> errors = new ArrayList<>();
         String prefix = String.format("Pointage Terrain[%d]: ", index);
 
@@ -1,15 +1,29 @@
 package com.seneau.offline_sync_service.web.controller;
 
 import com.seneau.offline_sync_service.web.dto.*;
+import com.seneau.offline_sync_service.service.BatchStatusNotifier;
+import com.seneau.offline_sync_service.service.FailureQueryService;
+import com.seneau.offline_sync_service.service.IdempotencyService;
+import com.seneau.offline_sync_service.service.StreamingSyncService;
 import com.seneau.offline_sync_service.service.SyncService;
+import com.seneau.offline_sync_service.service.SyncStatsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,7 +33,13 @@ import java.util.List;
 //@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"})
 public class SyncController {
 
+    public static final String NDJSON = "application/x-ndjson";
+
     private final SyncService offlineSyncService;
+    private final StreamingSyncService streamingSyncService;
+    private final BatchStatusNotifier batchStatusNotifier;
+    private final FailureQueryService failureQueryService;
+    private final SyncStatsService syncStatsService;
 
     /**
      * Synchroniser des pointages STANDARDS (avec matricule)
@@ -28,14 +48,16 @@ public class SyncController {
     @PostMapping("/pointages/sync")
     public ResponseEntity<SyncResponseDto> syncPointagesStandard(
             @Valid @RequestBody PointageBatchRequestDto request,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         log.info("📥 Synchronisation STANDARD de {} pointages pour {}",
                  request.getPointages().size(), userDetails.getUsername());
 
         SyncResponseDto response = offlineSyncService.syncPointagesStandard(
                 userDetails.getUsername(),
-                request
+                request,
+                idempotencyKey
         );
 
         return ResponseEntity.ok(response);
@@ -49,7 +71,8 @@ public class SyncController {
     public ResponseEntity<SyncResponseDto> syncPointagesTerrain(
             @Valid @RequestBody PointageTerrainBatchRequestDto request,
             @AuthenticationPrincipal UserDetails userDetails,
-            @RequestHeader(value = "X-User-Privileges", required = false) List<String> privileges) {
+            @RequestHeader(value = "X-User-Privileges", required = false) List<String> privileges,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
 
         log.info("📥 Synchronisation TERRAIN de {} pointages pour {}",
                  request.getPointages().size(), userDetails.getUsername());
@@ -62,6 +85,47 @@ public class SyncController {
         SyncResponseDto response = offlineSyncService.syncPointagesTerrain(
                 userDetails.getUsername(),
                 request,
+                privileges,
+                idempotencyKey
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Synchroniser des pointages STANDARDS en streaming (NDJSON, un pointage par ligne)
+     * Les pointages sont validés à la lecture et publiés par chunks
+     */
+    @PostMapping(value = "/pointages/sync/stream", consumes = NDJSON)
+    public ResponseEntity<StreamSyncResponseDto> syncPointagesStandardStream(
+            InputStream body,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+
+        StreamSyncResponseDto response = streamingSyncService.ingestStandard(
+                userDetails.getUsername(),
+                body
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Synchroniser des pointages TERRAIN en streaming (NDJSON, un pointage par ligne)
+     */
+    @PostMapping(value = "/pointages/terrain/sync/stream", consumes = NDJSON)
+    public ResponseEntity<StreamSyncResponseDto> syncPointagesTerrainStream(
+            InputStream body,
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(value = "X-User-Privileges", required = false) List<String> privileges)
+            throws IOException {
+
+        if (privileges == null || privileges.isEmpty()) {
+            privileges = List.of("AUTH_COLLABORATEUR");
+        }
+
+        StreamSyncResponseDto response = streamingSyncService.ingestTerrain(
+                userDetails.getUsername(),
+                body,
                 privileges
         );
 
@@ -77,18 +141,69 @@ public class SyncController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Statut de plusieurs batchs en un seul appel (appareil qui a synchronisé plusieurs batchs hors ligne)
+     */
+    @PostMapping("/status/bulk")
+    public ResponseEntity<BulkStatusResponseDto> getSyncStatuses(@Valid @RequestBody BulkStatusRequestDto request) {
+        return ResponseEntity.ok(offlineSyncService.getSyncStatuses(request.getBatchIds()));
+    }
+
+    /**
+     * Suivre le statut d'un batch en SSE jusqu'à son statut final
+     * (évite le polling de /status/{batchId})
+     */
+    @GetMapping(value = "/status/{batchId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSyncStatus(@PathVariable String batchId) {
+        return batchStatusNotifier.stream(batchId);
+    }
+
+    /**
+     * Long-poll: attendre le statut final d'un batch (au plus {@code timeout})
+     * Renvoie le statut courant si le batch n'est pas terminé à l'expiration
+     */
+    @GetMapping("/status/{batchId}/wait")
+    public DeferredResult<ResponseEntity<SyncStatusDto>> waitSyncStatus(
+            @PathVariable String batchId,
+            @RequestParam(required = false) Duration timeout) {
+        return batchStatusNotifier.await(batchId, timeout);
+    }
+
     /**
      * Endpoint pour récupérer les échecs de synchronisation
+     * Réponse écrite au fil de la lecture en base (tableau JSON complet)
      */
     @GetMapping("/failures")
-    public ResponseEntity<List<PointageBatchDto>> getFailedSyncs(
+    public ResponseEntity<StreamingResponseBody> getFailedSyncs(
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        List<PointageBatchDto> failures = offlineSyncService.getFailedSyncs(
-                userDetails.getUsername()
-        );
+        String email = userDetails.getUsername();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> failureQueryService.writeAll(email, out));
+    }
+
+    /**
+     * Échecs de synchronisation paginés (du plus récent au plus ancien)
+     * Passer le nextCursor de la réponse pour obtenir la page suivante
+     */
+    @GetMapping("/failures/page")
+    public ResponseEntity<FailurePageDto> getFailedSyncsPage(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit) {
+
+        return ResponseEntity.ok(failureQueryService.getPage(userDetails.getUsername(), cursor, from, to, limit));
+    }
 
-        return ResponseEntity.ok(failures);
+    /**
+     * Statistiques de synchronisation de l'utilisateur (agrégats maintenus à chaque batch finalisé)
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<SyncStatsDto> getStats(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(syncStatsService.getStats(userDetails.getUsername()));
     }
 
     /**
@@ -0,0 +1,17 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusRequestDto {
+
+    @NotEmpty(message = "La liste des batchIds ne peut pas être vide")
+    private List<String> batchIds;
+}
@@ -0,0 +1,15 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusResponseDto {
+    private List<SyncStatusDto> statuses; // Dans l'ordre de la requête
+    private List<String> notFound;
+}
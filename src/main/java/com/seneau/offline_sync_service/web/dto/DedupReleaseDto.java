@@ -0,0 +1,25 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import lombok.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Empreintes libérées après l'échec définitif d'un batch
+ * Diffusé à toutes les instances pour mettre à jour leur index en mémoire
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DedupReleaseDto implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String batchId;
+    private List<Long> fingerprints;
+}
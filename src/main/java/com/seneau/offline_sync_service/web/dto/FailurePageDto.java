@@ -0,0 +1,15 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FailurePageDto {
+    private List<PointageBatchDto> failures;
+    private String nextCursor; // null sur la dernière page
+}
@@ -0,0 +1,25 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Réponse d'un upload NDJSON: batchs créés et erreurs par ligne
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StreamSyncResponseDto {
+
+    private List<String> batchIds;
+    private Integer totalLines;
+    private Integer acceptedCount;
+    private Integer rejectedCount;
+    private Integer duplicatesSuppressed;
+    private List<String> validationErrors;
+    private Boolean validationErrorsTruncated;
+    private String message;
+}
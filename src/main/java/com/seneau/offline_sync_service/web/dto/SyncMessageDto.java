@@ -32,6 +32,10 @@ public class SyncMessageDto implements Serializable {
     private List<PointageTerrainOfflineDto> pointagesTerrain;
 
     private List<String> privileges;
+
+    // Référence du payload dans le stockage claim-check (pointages non transportés dans le message)
+    private String payloadRef;
+
     private LocalDateTime createdAt;
     private Integer retryCount;
 
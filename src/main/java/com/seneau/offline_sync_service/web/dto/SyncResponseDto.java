@@ -11,7 +11,7 @@ import java.util.List;
 @Builder
 public class SyncResponseDto {
     
-    private String batchId;
+    private String batchId; // Absent si aucun batch n'a été créé (tous les pointages déjà synchronisés)
     private String status;
     private Integer totalPointages;
     private Integer successCount;
@@ -20,4 +20,6 @@ public class SyncResponseDto {
     private List<PointageBatchDto> results;
     private List<String> validationErrors;
     private Boolean sentToQueue;
+    // Pointages écartés car déjà synchronisés par un batch précédent
+    private Integer duplicatesSuppressed;
 }
\ No newline at end of file
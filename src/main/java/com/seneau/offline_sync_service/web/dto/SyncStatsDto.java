@@ -0,0 +1,32 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncStatsDto {
+    private String email;
+    private Long totalBatches;
+    private Long successfulSyncs;
+    private Long totalPointagesSynced;
+    private Double averageFailureRate;
+    private Double averageDurationSeconds;
+    private List<TypeStats> byType;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class TypeStats {
+        private String typePointage;
+        private Long batchCount;
+        private Long successCount;
+        private Long failureCount;
+    }
+}
@@ -0,0 +1,18 @@
+package com.seneau.offline_sync_service.web.dto;
+
+import lombok.*;
+
+/**
+ * Changement de statut d'un batch, diffusé à toutes les instances
+ * pour mettre à jour leur cache de statuts
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncStatusEventDto {
+
+    private String batchId;
+    private SyncStatusDto status;
+}
@@ -0,0 +1,18 @@
+package com.seneau.offline_sync_service.web.exception;
+
+import lombok.Getter;
+
+/**
+ * Appel refusé localement par PointageCallGuard (disjoncteur ouvert, limite atteinte)
+ * Aucune requête n'a été envoyée: le batch est différé sans consommer de tentative
+ */
+@Getter
+public class PointageCallRejectedException extends PointageServiceException {
+
+    private final long retryAfterMs; // Délai suggéré avant de représenter le batch
+
+    public PointageCallRejectedException(String message, long retryAfterMs) {
+        super(message, 503);
+        this.retryAfterMs = retryAfterMs;
+    }
+}
@@ -1,11 +1,23 @@
 package com.seneau.offline_sync_service.web.exception;
 
+import lombok.Getter;
+
+@Getter
 public class PointageServiceException extends RuntimeException {
+
+    private final int status; // Statut HTTP de la réponse du service de pointage, -1 si inconnu
+
     public PointageServiceException(String message) {
+        this(message, -1);
+    }
+
+    public PointageServiceException(String message, int status) {
         super(message);
+        this.status = status;
     }
-    
+
     public PointageServiceException(String message, Throwable cause) {
         super(message, cause);
+        this.status = -1;
     }
-}
\ No newline at end of file
+}
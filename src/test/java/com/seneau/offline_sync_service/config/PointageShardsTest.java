@@ -0,0 +1,33 @@
+package com.seneau.offline_sync_service.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PointageShardsTest {
+
+	@Test
+	void spreadsAgentsEvenlyAndMovesFewWhenShardsAreAdded() {
+		PointageShards shards = new PointageShards(32);
+		PointageShards more = new PointageShards(40);
+		int agents = 32_000;
+		int[] perShard = new int[32];
+		int moved = 0;
+
+		for (int i = 0; i < agents; i++) {
+			String email = "agent" + i + "@seneau.sn"; // Emails proches: String.hashCode les regroupe
+			int shard = shards.shardFor(email);
+			perShard[shard]++;
+			int after = more.shardFor(email);
+			if (after != shard) {
+				assertThat(after).isGreaterThanOrEqualTo(32); // Seulement vers les nouvelles shards
+				moved++;
+			}
+		}
+
+		for (int count : perShard) {
+			assertThat(count).isBetween(800, 1200);
+		}
+		assertThat(moved).isBetween(agents * 15 / 100, agents * 25 / 100); // ~8/40
+	}
+}
@@ -0,0 +1,94 @@
+package com.seneau.offline_sync_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.PointageTerrainOfflineDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SyncMessageConverterTest {
+
+	private final Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter(new ObjectMapper().findAndRegisterModules());
+	private final SyncMessageConverter binary = new SyncMessageConverter(json, true, 4096);
+
+	@Test
+	void roundTripsStandardMessage() {
+		SyncMessageDto message = message(TypePointageSync.STANDARD);
+		message.setPointages(IntStream.range(0, 50)
+				.mapToObj(i -> new PointageOfflineDto(1000L + (i % 7), LocalDateTime.of(2024, 12, 13, 8, 0).plusMinutes(i)))
+				.toList());
+		message.setPayloadRef(message.getBatchId());
+
+		Message amqp = binary.toMessage(message, new MessageProperties());
+		SyncMessageDto decoded = (SyncMessageDto) binary.fromMessage(amqp);
+
+		assertThat(amqp.getMessageProperties().getContentType()).isEqualTo(SyncMessageConverter.CONTENT_TYPE_BINARY);
+		assertThat(decoded).usingRecursiveComparison().isEqualTo(message);
+	}
+
+	@Test
+	void roundTripsCompressedTerrainMessageWithinCoordinatePrecision() {
+		SyncMessageDto message = message(TypePointageSync.TERRAIN);
+		message.setPrivileges(List.of("POINTAGE_TERRAIN"));
+		message.setPointagesTerrain(terrain(1000));
+
+		Message amqp = binary.toMessage(message, new MessageProperties());
+		SyncMessageDto decoded = (SyncMessageDto) binary.fromMessage(amqp);
+
+		assertThat(amqp.getMessageProperties().getContentEncoding()).isEqualTo(SyncMessageConverter.CONTENT_ENCODING_GZIP);
+		assertThat(decoded).usingRecursiveComparison()
+				.ignoringFields("pointagesTerrain")
+				.isEqualTo(message);
+		for (int i = 0; i < 1000; i++) {
+			PointageTerrainOfflineDto expected = message.getPointagesTerrain().get(i);
+			PointageTerrainOfflineDto actual = decoded.getPointagesTerrain().get(i);
+			assertThat(actual.getHeurePointage()).isEqualTo(expected.getHeurePointage());
+			assertThat(actual.getLatitude()).isCloseTo(expected.getLatitude(), within(1e-7));
+			assertThat(actual.getLongitude()).isCloseTo(expected.getLongitude(), within(1e-7));
+		}
+	}
+
+	@Test
+	void binaryIsMuchSmallerThanJsonAndJsonIsStillReadable() {
+		SyncMessageDto message = message(TypePointageSync.TERRAIN);
+		message.setPointagesTerrain(terrain(1000));
+
+		Message jsonMessage = json.toMessage(message, new MessageProperties());
+		Message binaryMessage = binary.toMessage(message, new MessageProperties());
+
+		assertThat(binaryMessage.getBody().length).isLessThan(jsonMessage.getBody().length / 5);
+		SyncMessageDto fromJson = (SyncMessageDto) binary.fromMessage(jsonMessage);
+		assertThat(fromJson.getPointagesTerrain()).hasSize(1000);
+	}
+
+	private static SyncMessageDto message(TypePointageSync type) {
+		return SyncMessageDto.builder()
+				.batchId("5b0c7a1e-8f7e-4a7e-9d61-2a8c3c1f0b42")
+				.email("agent@seneau.sn")
+				.typePointage(type)
+				.createdAt(LocalDateTime.of(2024, 12, 13, 9, 15, 30, 123_000_000))
+				.retryCount(1)
+				.maxRetries(3)
+				.build();
+	}
+
+	private static List<PointageTerrainOfflineDto> terrain(int count) {
+		return IntStream.range(0, count)
+				.mapToObj(i -> new PointageTerrainOfflineDto(
+						LocalDateTime.of(2024, 12, 13, 7, 0).plusSeconds(37L * i),
+						14.6937 + i * 0.00001234567,
+						-17.4441 - i * 0.00000987654))
+				.toList();
+	}
+}
@@ -0,0 +1,29 @@
+package com.seneau.offline_sync_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedLineReaderTest {
+
+	@Test
+	void readsLinesAndSkipsTheTailOfOversizedOnes() throws IOException {
+		String oversized = "x".repeat(20_000); // Plus grand que le tampon de lecture
+		BoundedLineReader reader = new BoundedLineReader(
+				new StringReader("{\"a\":1}\r\n" + oversized + "\n\nnull"), 100);
+
+		assertThat(reader.readLine()).isEqualTo("{\"a\":1}");
+		assertThat(reader.isTruncated()).isFalse();
+
+		assertThat(reader.readLine()).hasSize(100);
+		assertThat(reader.isTruncated()).isTrue();
+
+		assertThat(reader.readLine()).isEmpty();
+		assertThat(reader.isTruncated()).isFalse();
+		assertThat(reader.readLine()).isEqualTo("null"); // Dernière ligne sans terminateur
+		assertThat(reader.readLine()).isNull();
+	}
+}
@@ -0,0 +1,74 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.exception.PointageCallRejectedException;
+import com.seneau.offline_sync_service.web.exception.PointageServiceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkedDispatcherTest {
+
+	private final ChunkedDispatcher dispatcher = new ChunkedDispatcher(10, 2, 4);
+
+	@AfterEach
+	void tearDown() {
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void mergesChunkResultsInOrder() {
+		List<Integer> items = IntStream.range(0, 35).boxed().toList();
+		AtomicInteger calls = new AtomicInteger();
+
+		ChunkedDispatcher.ChunkedResult<Integer> result = dispatcher.dispatch("b1", items, chunk -> {
+			calls.incrementAndGet();
+			return chunk.stream().map(i -> PointageBatchDto.builder().agent((long) i).statut("SUCCES").build()).toList();
+		});
+
+		assertThat(calls.get()).isEqualTo(4);
+		assertThat(result.hasFailures()).isFalse();
+		assertThat(result.results()).extracting(PointageBatchDto::getAgent)
+				.containsExactlyElementsOf(items.stream().map(Integer::longValue).toList());
+	}
+
+	@Test
+	void returnsOnlyFailedChunkItems() {
+		List<Integer> items = IntStream.range(0, 30).boxed().toList();
+
+		ChunkedDispatcher.ChunkedResult<Integer> result = dispatcher.dispatch("b2", items, chunk -> {
+			if (chunk.contains(15)) {
+				throw new IllegalStateException("timeout");
+			}
+			return chunk.stream().map(i -> PointageBatchDto.builder().agent((long) i).statut("SUCCES").build()).toList();
+		});
+
+		assertThat(result.hasFailures()).isTrue();
+		assertThat(result.failedItems()).containsExactlyElementsOf(IntStream.range(10, 20).boxed().toList());
+		assertThat(result.results()).hasSize(20);
+		assertThat(result.error()).hasMessage("timeout");
+	}
+
+	@Test
+	void downstreamFailureWinsOverLaterLocalRejection() {
+		List<Integer> items = IntStream.range(0, 30).boxed().toList();
+
+		ChunkedDispatcher.ChunkedResult<Integer> result = dispatcher.dispatch("b3", items, chunk -> {
+			if (chunk.contains(5)) {
+				throw new PointageServiceException("Erreur 500", 500);
+			}
+			if (chunk.contains(25)) {
+				throw new PointageCallRejectedException("disjoncteur ouvert", 1000);
+			}
+			return chunk.stream().map(i -> PointageBatchDto.builder().agent((long) i).statut("SUCCES").build()).toList();
+		});
+
+		// Le batch consomme une tentative au lieu d'être différé indéfiniment
+		assertThat(result.error()).isNotInstanceOf(PointageCallRejectedException.class).hasMessage("Erreur 500");
+	}
+}
@@ -0,0 +1,64 @@
+package com.seneau.offline_sync_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+	private final AtomicLong clock = new AtomicLong();
+	private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+	private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(30), 2,
+			clock::get, transitions::add);
+
+	@Test
+	void opensOnFailureRateThenClosesAfterSuccessfulProbes() {
+		for (int i = 0; i < 2; i++) {
+			breaker.onSuccess();
+		}
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+		clock.addAndGet(Duration.ofSeconds(10).toNanos());
+		assertThat(breaker.remainingOpenMillis()).isEqualTo(20_000); // Délai des batchs refusés
+
+		clock.addAndGet(Duration.ofSeconds(20).toNanos());
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.tryAcquire()).isFalse(); // Seulement deux appels de test
+		breaker.onSuccess();
+		breaker.onSuccess();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(transitions).containsExactly(
+				CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void failedProbeReopensAndAdaptiveLimitBacksOff() throws InterruptedException {
+		for (int i = 0; i < 4; i++) {
+			breaker.onFailure();
+		}
+		breaker.halfOpen();
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 20, 0.5, 1_000);
+		assertThat(limiter.acquire(0)).isTrue();
+		assertThat(limiter.acquire(0)).isTrue();
+		assertThat(limiter.acquire(0)).isFalse(); // Limite atteinte
+		limiter.release(10, false);               // Limite sollicitée et appel rapide: +1
+		assertThat(limiter.getLimit()).isEqualTo(3);
+		limiter.release(5_000, false);            // Trop lent: recul
+		assertThat(limiter.getLimit()).isEqualTo(1);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+}
@@ -0,0 +1,45 @@
+package com.seneau.offline_sync_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongHashSetTest {
+
+	@Test
+	void behavesLikeHashSetUnderRandomOperations() {
+		LongHashSet set = new LongHashSet(4);
+		Set<Long> reference = new HashSet<>();
+		Random random = new Random(42);
+
+		for (int i = 0; i < 200_000; i++) {
+			// Petit domaine de valeurs pour provoquer collisions et suppressions
+			long value = random.nextInt(5_000) * 0x1_0000_0000L;
+			if (random.nextInt(3) == 0) {
+				assertThat(set.remove(value)).isEqualTo(reference.remove(value));
+			} else {
+				assertThat(set.add(value)).isEqualTo(reference.add(value));
+			}
+		}
+
+		assertThat(set.size()).isEqualTo(reference.size());
+		for (long value = 0; value < 5_000; value++) {
+			long key = value * 0x1_0000_0000L;
+			assertThat(set.contains(key)).isEqualTo(reference.contains(key));
+		}
+	}
+
+	@Test
+	void acceptsZero() {
+		LongHashSet set = new LongHashSet(16);
+
+		assertThat(set.add(0L)).isTrue();
+		assertThat(set.contains(0L)).isTrue();
+		assertThat(set.remove(0L)).isTrue();
+		assertThat(set.contains(0L)).isFalse();
+	}
+}
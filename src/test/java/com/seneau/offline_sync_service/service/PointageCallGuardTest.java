@@ -0,0 +1,69 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.web.exception.PointageCallRejectedException;
+import com.seneau.offline_sync_service.web.exception.PointageServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PointageCallGuardTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final PointageCallGuard guard = new PointageCallGuard(new RabbitListenerEndpointRegistry(), meterRegistry,
+			10, 1, 50, 0.9, Duration.ofSeconds(5), 100,
+			2, 2, 0.5, Duration.ofMillis(50), 1, 50);
+
+	@AfterEach
+	void tearDown() {
+		guard.shutdown();
+	}
+
+	@Test
+	void halfOpenBoundsInFlightCallsToProbes() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> guard.call(() -> {
+				throw new PointageServiceException("Erreur 503", 503);
+			})).isInstanceOf(PointageServiceException.class);
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (guard.getCircuitState() != CircuitBreaker.State.HALF_OPEN && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(guard.getCircuitState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+		CountDownLatch probeStarted = new CountDownLatch(1);
+		CountDownLatch probeRelease = new CountDownLatch(1);
+		CompletableFuture<String> probe = CompletableFuture.supplyAsync(() -> guard.call(() -> {
+			probeStarted.countDown();
+			await(probeRelease);
+			return "ok";
+		}));
+		assertThat(probeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Le second appel attend une place sous le plafond au lieu d'atteindre le disjoncteur
+		assertThatThrownBy(() -> guard.call(() -> "trop tôt")).isInstanceOf(PointageCallRejectedException.class);
+		assertThat(meterRegistry.counter("sync.pointage.rejected", "reason", "limit").count()).isEqualTo(1);
+
+		probeRelease.countDown();
+		assertThat(probe.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+		assertThat(guard.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(guard.call(() -> "nominal")).isEqualTo("nominal");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityPolicyTest {
+
+	private final PriorityPolicy policy = new PriorityPolicy(9, 20, 500,
+			Duration.ofMinutes(15), Duration.ofHours(24), 2, 1, 7, 2);
+
+	@Test
+	void smallFreshBatchIsInteractiveAndBackfillIsBulk() {
+		int fresh = policy.score(message(5, LocalDateTime.now().minusMinutes(1), 0));
+		int backfill = policy.score(message(800, LocalDateTime.now().minusDays(3), 0));
+
+		assertThat(policy.lane(fresh)).isEqualTo(PriorityPolicy.LANE_INTERACTIVE);
+		assertThat(policy.lane(backfill)).isEqualTo(PriorityPolicy.LANE_BULK);
+	}
+
+	@Test
+	void retriesAndOffloadedPayloadsLowerThePriority() {
+		LocalDateTime now = LocalDateTime.now();
+		int first = policy.score(message(5, now, 0));
+		int retried = policy.score(message(5, now, 5));
+
+		SyncMessageDto offloaded = message(0, now, 0);
+		offloaded.setPayloadRef(offloaded.getBatchId());
+
+		assertThat(retried).isEqualTo(first - 2);
+		assertThat(policy.score(offloaded)).isLessThan(policy.score(message(100, now, 0)));
+	}
+
+	private static SyncMessageDto message(int size, LocalDateTime newest, int retryCount) {
+		return SyncMessageDto.builder()
+				.batchId("5b0c7a1e-8f7e-4a7e-9d61-2a8c3c1f0b42")
+				.email("agent@seneau.sn")
+				.typePointage(TypePointageSync.STANDARD)
+				.pointages(IntStream.range(0, size)
+						.mapToObj(i -> new PointageOfflineDto(1000L + i, newest.minusMinutes(i % 5)))
+						.toList())
+				.retryCount(retryCount)
+				.build();
+	}
+}
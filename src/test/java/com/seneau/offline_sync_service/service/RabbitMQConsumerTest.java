@@ -0,0 +1,93 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncBatch;
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.data.repository.SyncBatchRepository;
+import com.seneau.offline_sync_service.web.client.PointageServiceClient;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import com.seneau.offline_sync_service.web.dto.SyncMessageDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitMQConsumerTest {
+
+	private final PointageServiceClient pointageClient = mock(PointageServiceClient.class);
+	private final SyncBatchRepository syncBatchRepository = mock(SyncBatchRepository.class);
+	private final PointageDedupIndex dedupIndex = mock(PointageDedupIndex.class);
+	private final ClaimCheckService claimCheckService = mock(ClaimCheckService.class);
+	private final BatchResultsStore batchResultsStore = mock(BatchResultsStore.class);
+	private final PointageCallGuard pointageCallGuard = mock(PointageCallGuard.class);
+	private final AgentRateLimiter agentRateLimiter = mock(AgentRateLimiter.class);
+	private final ChunkedDispatcher chunkedDispatcher = new ChunkedDispatcher(200, 4, 4);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final RabbitMQConsumer consumer = new RabbitMQConsumer(pointageClient, syncBatchRepository,
+			mock(RabbitMQProducer.class), chunkedDispatcher, meterRegistry, dedupIndex, claimCheckService,
+			batchResultsStore, mock(SyncStatusCache.class), mock(SyncStatsService.class), pointageCallGuard,
+			agentRateLimiter, new SyncMetrics(meterRegistry));
+
+	@AfterEach
+	void tearDown() {
+		chunkedDispatcher.shutdown();
+	}
+
+	@Test
+	void releasesFingerprintsOfPointagesRejectedByThePointageService() {
+		PointageOfflineDto accepted = pointage(1L, "2024-12-13T08:30:00");
+		PointageOfflineDto rejected = pointage(2L, "2024-12-13T08:31:00");
+		SyncBatch batch = SyncBatch.builder().batchId("b1").email("agent@seneau.sn")
+				.typePointage("STANDARD").totalPointages(2).status(SyncStatus.PENDING).build();
+
+		when(syncBatchRepository.findByBatchId("b1")).thenReturn(Optional.of(batch));
+		when(claimCheckService.resolve(any())).thenReturn(true);
+		when(batchResultsStore.load("b1")).thenAnswer(invocation -> new ArrayList<>());
+		when(agentRateLimiter.tryAcquire(anyString(), anyInt())).thenReturn(0L);
+		when(pointageCallGuard.call(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+		when(pointageClient.enregistrerPointagesOffline(eq("agent@seneau.sn"), any())).thenReturn(List.of(
+				result(1L, "SUCCES"),
+				result(2L, "ECHEC")));
+
+		consumer.consumeSyncMessage(SyncMessageDto.builder()
+				.batchId("b1")
+				.email("agent@seneau.sn")
+				.typePointage(TypePointageSync.STANDARD)
+				.pointages(List.of(accepted, rejected))
+				.retryCount(0)
+				.build());
+
+		assertThat(batch.getStatus()).isEqualTo(SyncStatus.PARTIAL_FAILURE);
+		// Seul le pointage refusé peut être renvoyé par l'appareil sans être écarté comme doublon
+		verify(dedupIndex).releaseStandard("b1", List.of(rejected));
+	}
+
+	private static PointageOfflineDto pointage(long matricule, String heure) {
+		PointageOfflineDto pointage = new PointageOfflineDto();
+		pointage.setMatricule(matricule);
+		pointage.setHeurePointage(LocalDateTime.parse(heure));
+		return pointage;
+	}
+
+	private static PointageBatchDto result(long agent, String statut) {
+		return PointageBatchDto.builder().agent(agent).date(LocalDate.of(2024, 12, 13))
+				.statut(statut).build();
+	}
+}
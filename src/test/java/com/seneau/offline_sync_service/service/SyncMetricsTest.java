@@ -0,0 +1,67 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.data.model.TypePointageSync;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SyncMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final SyncMetrics metrics = new SyncMetrics(registry);
+
+	@Test
+	void persistedLagIsTaggedByResultWhenResultsAlignWithPointages() {
+		LocalDateTime now = LocalDateTime.now();
+		metrics.recordPersisted(TypePointageSync.STANDARD,
+				List.of(now.minusHours(2), now.minusMinutes(5)),
+				List.of(result("SUCCES"), result("ECHEC")));
+		metrics.recordPersisted(TypePointageSync.STANDARD, List.of(now), List.of());
+
+		assertThat(lag("succes").count()).isEqualTo(1);
+		assertThat(lag("succes").totalTime(TimeUnit.MINUTES)).isGreaterThanOrEqualTo(119);
+		assertThat(lag("echec").count()).isEqualTo(1);
+		assertThat(lag("inconnu").count()).isEqualTo(1);
+	}
+
+	@Test
+	void stageOutcomeIsErrorWhenTheStageThrows() {
+		assertThatThrownBy(() -> metrics.time("downstream", TypePointageSync.TERRAIN, () -> {
+			throw new IllegalStateException("boom");
+		})).isInstanceOf(IllegalStateException.class);
+
+		assertThat(registry.get("sync.stage.duration")
+				.tags("stage", "downstream", "type", "TERRAIN", "outcome", SyncMetrics.OUTCOME_ERROR)
+				.timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void batchStatusIsCountedApartFromTheStageOutcome() {
+		metrics.time("update", TypePointageSync.STANDARD, () -> { });
+		metrics.recordCompleted(TypePointageSync.STANDARD, SyncStatus.PARTIAL_FAILURE);
+
+		assertThat(registry.get("sync.stage.duration")
+				.tags("stage", "update", "outcome", SyncMetrics.OUTCOME_SUCCESS)
+				.timer().count()).isEqualTo(1);
+		assertThat(registry.get("sync.batch.completed")
+				.tags("type", "STANDARD", "status", "partial_failure")
+				.counter().count()).isEqualTo(1);
+	}
+
+	private Timer lag(String statut) {
+		return registry.get("sync.pointage.persisted.lag").tags("type", "STANDARD", "statut", statut).timer();
+	}
+
+	private static PointageBatchDto result(String statut) {
+		return PointageBatchDto.builder().statut(statut).build();
+	}
+}
@@ -0,0 +1,60 @@
+package com.seneau.offline_sync_service.service;
+
+import com.seneau.offline_sync_service.data.model.SyncStatus;
+import com.seneau.offline_sync_service.web.dto.SyncStatusDto;
+import com.seneau.offline_sync_service.web.dto.SyncStatusEventDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncStatusCacheTest {
+
+	private final SyncStatusCache cache = new SyncStatusCache(null, event -> { }, new SimpleMeterRegistry(),
+			100, Duration.ofMinutes(5));
+
+	@Test
+	void terminalEventReceivedDuringLoadIsNotLost() throws InterruptedException {
+		CountDownLatch applied = new CountDownLatch(1);
+		Thread consumer = new Thread(() -> {
+			cache.onStatusEvent(new SyncStatusEventDto("b1", status("b1", SyncStatus.COMPLETED)));
+			applied.countDown();
+		});
+
+		SyncStatusDto loaded = cache.get("b1", () -> {
+			consumer.start();
+			try {
+				// L'événement attend la fin du chargement au lieu d'être ignoré
+				assertThat(applied.await(200, TimeUnit.MILLISECONDS)).isFalse();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return status("b1", SyncStatus.IN_PROGRESS); // Lu en base avant le commit du statut final
+		});
+		consumer.join();
+
+		assertThat(loaded.getStatus()).isEqualTo("IN_PROGRESS");
+		assertThat(cache.getIfPresent("b1")).get().extracting(SyncStatusDto::getStatus).isEqualTo("COMPLETED");
+	}
+
+	@Test
+	void loadedIntermediateStatusDoesNotMaskTerminalEvent() {
+		cache.onStatusEvent(new SyncStatusEventDto("b2", status("b2", SyncStatus.FAILED)));
+
+		Map<String, SyncStatusDto> found = cache.getAll(List.of("b2"), missing -> Map.of());
+		assertThat(found.get("b2").getStatus()).isEqualTo("FAILED");
+
+		cache.onStatusEvent(new SyncStatusEventDto("b2", status("b2", SyncStatus.RETRY))); // Arrivé en retard
+		assertThat(cache.getIfPresent("b2")).get().extracting(SyncStatusDto::getStatus).isEqualTo("FAILED");
+	}
+
+	private static SyncStatusDto status(String batchId, SyncStatus status) {
+		return SyncStatusDto.builder().batchId(batchId).status(status.name()).build();
+	}
+}
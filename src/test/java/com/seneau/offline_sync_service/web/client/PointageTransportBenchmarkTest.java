@@ -0,0 +1,126 @@
+package com.seneau.offline_sync_service.web.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.seneau.offline_sync_service.config.PooledHttpClient;
+import com.seneau.offline_sync_service.web.dto.PointageBatchDto;
+import com.seneau.offline_sync_service.web.dto.PointageBatchRequestDto;
+import com.seneau.offline_sync_service.web.dto.PointageOfflineDto;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transports du client pointage contre un service factice
+ * Le benchmark est lancé à la demande: mvn test -Dtest=PointageTransportBenchmarkTest -Dbenchmark=true
+ */
+class PointageTransportBenchmarkTest {
+
+	private static final int THREADS = 16;
+	private static final int WARMUP_CALLS = 1_000;
+	private static final int MEASURED_CALLS = 10_000;
+	private static final int BATCH_SIZE = 200;
+
+	@Test
+	void pooledTransportCompressesLargeBodiesOnly() throws Exception {
+		try (StubPointageServer stub = new StubPointageServer(0)) {
+			PointageServiceClient client = client(stub.url(),
+					new PooledHttpClient(Duration.ofSeconds(1), false, 4, true, 8192));
+
+			List<PointageBatchDto> small = client.enregistrerPointagesOffline("agent@seneau.sn", request(5));
+			List<PointageBatchDto> large = client.enregistrerPointagesOffline("agent@seneau.sn", request(BATCH_SIZE));
+
+			assertThat(small).hasSize(5);
+			assertThat(large).hasSize(BATCH_SIZE).allMatch(result -> "SUCCES".equals(result.getStatut()));
+			assertThat(stub.gzipRequests()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	void compareTransports() throws Exception {
+		try (StubPointageServer stub = new StubPointageServer(2)) {
+			run("default (HttpURLConnection)", client(stub.url(), new Client.Default(null, null)));
+			run("pooled", client(stub.url(), new PooledHttpClient(Duration.ofSeconds(5), false, 50, false, 8192)));
+			long before = stub.bytesReceived();
+			run("pooled + gzip", client(stub.url(), new PooledHttpClient(Duration.ofSeconds(5), false, 50, true, 8192)));
+			System.out.printf("gzip: %d octets reçus par appel%n", (stub.bytesReceived() - before) / (WARMUP_CALLS + MEASURED_CALLS));
+		}
+	}
+
+	private static void run(String name, PointageServiceClient client) throws InterruptedException {
+		PointageBatchRequestDto request = request(BATCH_SIZE);
+		call(client, request, WARMUP_CALLS, new long[WARMUP_CALLS]);
+
+		long[] latencies = new long[MEASURED_CALLS];
+		long start = System.nanoTime();
+		call(client, request, MEASURED_CALLS, latencies);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Arrays.sort(latencies);
+		System.out.printf("%-28s %8.0f appels/s   p50 %6.2f ms   p99 %6.2f ms%n", name,
+				MEASURED_CALLS / seconds,
+				latencies[MEASURED_CALLS / 2] / 1e6,
+				latencies[(int) (MEASURED_CALLS * 0.99)] / 1e6);
+	}
+
+	private static void call(PointageServiceClient client, PointageBatchRequestDto request, int calls, long[] latencies)
+			throws InterruptedException {
+		AtomicInteger next = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		for (int t = 0; t < THREADS; t++) {
+			pool.execute(() -> {
+				int i;
+				while ((i = next.getAndIncrement()) < calls) {
+					long begin = System.nanoTime();
+					client.enregistrerPointagesOffline("agent@seneau.sn", request);
+					latencies[i] = System.nanoTime() - begin;
+				}
+			});
+		}
+		pool.shutdown();
+		assertThat(pool.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+	}
+
+	private static PointageServiceClient client(String url, Client transport) {
+		MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter(
+				new ObjectMapper().findAndRegisterModules());
+		ObjectFactory<HttpMessageConverters> converters = () -> new HttpMessageConverters(false, List.of(json));
+		return Feign.builder()
+				.client(transport)
+				.contract(new SpringMvcContract())
+				.encoder(new SpringEncoder(converters))
+				.decoder(new ResponseEntityDecoder(new SpringDecoder(converters)))
+				.options(new Request.Options(5, TimeUnit.SECONDS, 10, TimeUnit.SECONDS, false))
+				.requestInterceptor(template -> template.header("Content-Type", "application/json"))
+				.target(PointageServiceClient.class, url);
+	}
+
+	private static PointageBatchRequestDto request(int size) {
+		PointageBatchRequestDto request = new PointageBatchRequestDto();
+		request.setPointages(IntStream.range(0, size)
+				.mapToObj(i -> new PointageOfflineDto(1000L + i, LocalDateTime.of(2024, 12, 13, 8, 0).plusMinutes(i)))
+				.toList());
+		return request;
+	}
+}
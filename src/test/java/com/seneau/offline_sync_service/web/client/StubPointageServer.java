@@ -0,0 +1,117 @@
+package com.seneau.offline_sync_service.web.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Service de pointage factice: accepte les deux endpoints batch et renvoie un résultat SUCCES par pointage
+ * Décompresse les requêtes gzip, simule une latence de traitement fixe et une part d'erreurs 500
+ */
+public class StubPointageServer implements AutoCloseable {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final long latencyMs;
+	private final double errorRate;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong gzipRequests = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	public StubPointageServer(long latencyMs) throws IOException {
+		this(latencyMs, 0);
+	}
+
+	public StubPointageServer(long latencyMs, double errorRate) throws IOException {
+		this.latencyMs = latencyMs;
+		this.errorRate = errorRate;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+		this.executor = Executors.newFixedThreadPool(64);
+		server.setExecutor(executor);
+		server.createContext("/api/v1/pointages/offline", this::handle);
+		server.start();
+	}
+
+	public String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	public long requests() {
+		return requests.get();
+	}
+
+	public long gzipRequests() {
+		return gzipRequests.get();
+	}
+
+	public long bytesReceived() {
+		return bytesReceived.get();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		byte[] raw = exchange.getRequestBody().readAllBytes();
+		bytesReceived.addAndGet(raw.length);
+		boolean gzip = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+		if (gzip) {
+			gzipRequests.incrementAndGet();
+		}
+
+		JsonNode request;
+		try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(raw)) : new ByteArrayInputStream(raw)) {
+			request = objectMapper.readTree(in);
+		}
+		boolean terrain = exchange.getRequestURI().getPath().contains("/terrain/");
+		JsonNode pointages = request.get("pointages");
+
+		ArrayNode results = objectMapper.createArrayNode();
+		if (pointages != null) {
+			for (JsonNode pointage : pointages) {
+				results.addObject()
+						.put("agent", pointage.path("matricule").asLong(0))
+						.put("date", "2024-12-13")
+						.put("isTerrain", terrain)
+						.put("statut", "SUCCES")
+						.put("message", "Pointage enregistré");
+			}
+		}
+		if (latencyMs > 0) {
+			try {
+				Thread.sleep(latencyMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		boolean error = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+		byte[] body = error
+				? "{\"message\":\"Erreur simulée\"}".getBytes(StandardCharsets.UTF_8)
+				: objectMapper.writeValueAsBytes(results);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(error ? 500 : 200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}